@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Переносит бронирования, закончившиеся раньше чем shareit.bookings.archive.after назад, из booking
+ * в booking_archive. Пачка из batch-size строк блокируется SELECT ... FOR UPDATE, копируется одним
+ * INSERT ... SELECT и удаляется одним DELETE в той же транзакции, поэтому строка всегда есть ровно
+ * в одной из таблиц, а задачи на нескольких узлах не переносят одну строку дважды.
+ */
+@Component
+@Slf4j
+public class BookingArchiveJob {
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration after;
+    private final int batchSize;
+
+    public BookingArchiveJob(BookingRepository bookingRepository,
+                             BookingArchiveRepository bookingArchiveRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${shareit.bookings.archive.after:180d}") Duration after,
+                             @Value("${shareit.bookings.archive.batch-size:1000}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.after = after;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.archive.interval-ms:3600000}",
+            initialDelayString = "${shareit.bookings.archive.interval-ms:3600000}")
+    public void archiveEndedBookings() {
+        LocalDateTime before = LocalDateTime.now().minus(after);
+        int archived = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> archiveBatch(before));
+            archived += batch;
+        } while (batch == batchSize);
+        if (archived > 0) {
+            log.info("В архив перенесено {} бронирований, закончившихся до {}.", archived, before);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime before) {
+        List<Long> ids = bookingRepository.lockEndedBookings(before, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        bookingArchiveRepository.copyFromBookings(ids);
+        return bookingRepository.deleteAllByIdIn(ids);
+    }
+}
@@ -2,14 +2,20 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.net.URI;
 import java.util.List;
 
 @Slf4j
@@ -28,6 +34,24 @@ public class BookingController {
         return bookingServiceImpl.addBooking(userId, bookingDto);
     }
 
+    @PostMapping(params = "async=true")
+    public ResponseEntity<BookingTicketDto> addBookingAsync(@RequestHeader(USERID_HEADER) Long userId,
+                                                            @Valid @RequestBody BookingDto bookingDto) {
+        log.info("Пришел асинхронный POST запрос на добавление новой аренды {} от пользователя с id {}",
+                bookingDto, userId);
+        BookingTicketDto ticket = bookingServiceImpl.addBookingAsync(userId, bookingDto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/bookings/tickets/" + ticket.getId()))
+                .body(ticket);
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public BookingTicketDto getTicket(@RequestHeader(USERID_HEADER) Long userId,
+                                      @PathVariable String ticketId) {
+        log.info("Пришел /GET запрос на получение талона бронирования {} от пользователя {}", ticketId, userId);
+        return bookingServiceImpl.getTicket(userId, ticketId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingInfoDto updateBookingStatus(@RequestHeader(USERID_HEADER) Long userId,
                                               @PathVariable Long bookingId,
@@ -37,6 +61,21 @@ public class BookingController {
         return bookingServiceImpl.updateBookingStatus(userId, bookingId, approved);
     }
 
+    @PatchMapping
+    public List<BookingDecisionResultDto> updateBookingStatuses(@RequestHeader(USERID_HEADER) Long userId,
+                                                                @RequestParam boolean approved,
+                                                                @RequestBody List<Long> bookingIds) {
+        log.info("Пришел /PATCH запрос на принятие или отклонение {} аренд от пользователя с id {}",
+                bookingIds.size(), userId);
+        return bookingServiceImpl.updateBookingStatuses(userId, bookingIds, approved);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(USERID_HEADER) Long userId) {
+        log.info("Пришел /GET запрос на подписку на события бронирований от пользователя с id {}", userId);
+        return bookingServiceImpl.subscribe(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingInfoDto getCurrentBooking(@RequestHeader(USERID_HEADER) Long userId,
                                             @PathVariable Long bookingId) {
@@ -45,23 +84,25 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingInfoDto> getBooking(@RequestHeader(USERID_HEADER) Long userId,
+    public ResponseEntity<List<BookingInfoDto>> getBooking(@RequestHeader(USERID_HEADER) Long userId,
                                            @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                           @RequestParam(required = false) String after,
                                            @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
                                            @RequestParam(required = false, defaultValue = "10") @Positive Integer size) {
         log.info("Пришел /GET запрос на получение списка всех бронирований для пользователя с id {}, и с параметром {}",
                 userId, stateParam);
-        return bookingServiceImpl.getBooking(userId, stateParam, from, size);
+        return bookingServiceImpl.getBooking(userId, stateParam, after, from, size).toResponse();
     }
 
     @GetMapping("/owner")
-    public List<BookingInfoDto> getAllByOwner(@RequestHeader(USERID_HEADER) Long userId,
+    public ResponseEntity<List<BookingInfoDto>> getAllByOwner(@RequestHeader(USERID_HEADER) Long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                              @RequestParam(required = false) String after,
                                               @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
                                               @RequestParam(required = false, defaultValue = "10") @Positive Integer size) {
         log.info("Пришел /GET запрос на получение списка всех бронирований для владельца с id {}, и с параметром {}",
                 userId, stateParam);
-        return bookingServiceImpl.getOwnerBooking(userId, stateParam, from, size);
+        return bookingServiceImpl.getOwnerBooking(userId, stateParam, after, from, size).toResponse();
 
     }
 }
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+public interface BookingStatusView {
+
+    Long getId();
+
+    BookingStatus getStatus();
+}
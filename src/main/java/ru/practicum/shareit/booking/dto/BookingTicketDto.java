@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.enums.BookingTicketStatus;
+
+@Data
+@Builder(toBuilder = true)
+public class BookingTicketDto {
+
+    private String id;
+    private BookingTicketStatus status;
+    private Long bookingId;
+    private String error;
+}
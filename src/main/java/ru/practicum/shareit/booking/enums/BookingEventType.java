@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.enums;
+
+public enum BookingEventType {
+    CREATED("created"),
+    APPROVED("approved"),
+    REJECTED("rejected");
+
+    private String name;
+
+    BookingEventType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.enums;
+
+public enum BookingTicketStatus {
+    PENDING("pending"),
+    CREATED("created"),
+    FAILED("failed");
+
+    private String name;
+
+    BookingTicketStatus(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.enums.BookingEventType;
+
+/**
+ * Изменение бронирования, о котором нужно сообщить владельцу вещи и арендатору.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BookingEvent {
+    private final BookingEventType type;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final BookingInfoDto booking;
+}
@@ -0,0 +1,266 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Рассылка событий бронирований по SSE. У каждого подписчика своя очередь на buffer-size событий,
+ * события отправляются из пула потоков, а не из потока, изменившего бронирование. Если очередь
+ * подписчика переполнена, клиент не успевает читать поток: соединение закрывается, и клиент
+ * после переподключения перечитывает бронирования обычным GET запросом. Подписчик, у которого
+ * отправка одного события висит дольше send-timeout (клиент перестал читать сокет), тоже отключается.
+ * События рассылаются только после коммита транзакции.
+ */
+@Component
+@Slf4j
+public class BookingEventHub implements MeterBinder {
+
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int ABANDONED = 2;
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Executor executor;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final LongAdder disconnected = new LongAdder();
+
+    @Autowired
+    public BookingEventHub(@Value("${shareit.bookings.events.buffer-size:64}") int bufferSize,
+                           @Value("${shareit.bookings.events.timeout:30m}") Duration timeout,
+                           @Value("${shareit.bookings.events.send-timeout:10s}") Duration sendTimeout,
+                           @Value("${shareit.bookings.events.threads:4}") int threads) {
+        this(bufferSize, timeout, sendTimeout, Executors.newFixedThreadPool(threads, threadFactory()));
+    }
+
+    BookingEventHub(int bufferSize, Duration timeout, Duration sendTimeout, Executor executor) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        return subscribe(userId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        log.info("Пользователь с ID {} подписался на события бронирований.", userId);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingEvent(BookingEvent event) {
+        Supplier<SseEmitter.SseEventBuilder> message = () -> SseEmitter.event()
+                .name(event.getType().getName())
+                .data(event.getBooking(), MediaType.APPLICATION_JSON);
+        deliver(event.getOwnerId(), message);
+        if (!event.getBookerId().equals(event.getOwnerId())) {
+            deliver(event.getBookerId(), message);
+        }
+    }
+
+    @EventListener
+    public void onTicketEvent(BookingTicketEvent event) {
+        deliver(event.getBookerId(), () -> SseEmitter.event()
+                .name("ticket")
+                .data(event.getTicket(), MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * Комментарий в потоке раз в heartbeat-ms: прокси не закрывают молчащее соединение,
+     * а отвалившиеся клиенты обнаруживаются по ошибке записи.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.keySet().forEach(userId -> deliver(userId, () -> SseEmitter.event().comment("ping")));
+    }
+
+    /**
+     * Блокирующая запись в сокет не прерывается interrupt и ждет таймаута соединения, поэтому поток
+     * с зависшей отправкой остается занят. Подписчик отключается, а пул на время ожидания получает
+     * еще один поток, чтобы остальные подписчики продолжали получать события.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.send-check-ms:1000}")
+    public synchronized void dropStuckSends() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.state.get() != SENDING || now - subscriber.sendStarted <= sendTimeoutNanos) {
+                return;
+            }
+            resizePool(1);
+            if (subscriber.state.compareAndSet(SENDING, ABANDONED)) {
+                log.info("Отправка события подписчику пользователя с ID {} зависла, соединение закрыто.",
+                        subscriber.userId);
+                disconnected.increment();
+                remove(subscriber);
+                subscriber.queue.clear();
+            } else {
+                resizePool(-1);
+            }
+        }));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.bookings.events.subscribers", this, BookingEventHub::getSubscriberCount)
+                .description("Открытые SSE подписки на события бронирований")
+                .register(registry);
+        FunctionCounter.builder("shareit.bookings.events.disconnected", this, BookingEventHub::getDisconnected)
+                .description("SSE подписки, закрытые из-за переполнения очереди или зависшей отправки")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void deliver(Long userId, Supplier<SseEmitter.SseEventBuilder> message) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            if (subscriber.queue.offer(message.get())) {
+                subscriber.schedule();
+            } else {
+                log.info("Подписчик событий пользователя с ID {} не успевает читать поток, соединение закрыто.",
+                        userId);
+                disconnected.increment();
+                remove(subscriber);
+                subscriber.queue.clear();
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void resizePool(int delta) {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        synchronized (pool) {
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("booking-events-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long sendStarted;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder message;
+                while ((message = queue.poll()) != null) {
+                    sendStarted = System.nanoTime();
+                    state.set(SENDING);
+                    boolean failed = false;
+                    try {
+                        emitter.send(message);
+                    } catch (IOException | IllegalStateException e) {
+                        failed = true;
+                        remove(this);
+                        queue.clear();
+                        emitter.completeWithError(e);
+                    }
+                    if (!state.compareAndSet(SENDING, IDLE)) {
+                        // подписчик отключен в dropStuckSends, пока отправка висела
+                        resizePool(-1);
+                        if (!failed) {
+                            emitter.complete();
+                        }
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
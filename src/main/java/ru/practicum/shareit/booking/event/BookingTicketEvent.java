@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+
+/**
+ * Итог асинхронного бронирования, о котором нужно сообщить арендатору.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BookingTicketEvent {
+    private final Long bookerId;
+    private final BookingTicketDto ticket;
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.expiry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Отменяет WAITING бронирования, время начала которых уже прошло. Бронирования обрабатываются пачками
+ * по shareit.bookings.expiry.batch-size строк, каждая пачка - отдельная транзакция. Строки пачки
+ * блокируются SELECT ... FOR UPDATE, а статус меняется условным UPDATE ... WHERE status = 'WAITING':
+ * задача на другом узле дождется блокировки и уже не увидит отмененные строки, а решение владельца,
+ * пришедшее одновременно, либо дождется отмены, либо не даст ее сделать.
+ */
+@Component
+@Slf4j
+public class BookingExpiryJob {
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${shareit.bookings.expiry.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry.interval-ms:60000}",
+            initialDelayString = "${shareit.bookings.expiry.interval-ms:60000}")
+    public void expireStaleBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> expireBatch(now));
+            expired += batch;
+        } while (batch == batchSize);
+        if (expired > 0) {
+            log.info("Отменено {} неподтвержденных бронирований, время начала которых прошло.", expired);
+        }
+    }
+
+    private int expireBatch(LocalDateTime now) {
+        List<BookingItemView> stale = bookingRepository.lockStartedBookings(BookingStatus.WAITING, now,
+                PageRequest.of(0, batchSize));
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        int updated = bookingRepository.updateStatusIn(stale.stream()
+                .map(BookingItemView::getId)
+                .collect(Collectors.toList()), BookingStatus.WAITING, BookingStatus.CANCELED);
+        stale.forEach(booking -> bookingIntervalIndex.release(booking.getItemId(), booking.getId()));
+        return updated;
+    }
+}
@@ -0,0 +1,276 @@
+package ru.practicum.shareit.booking.intake;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+import ru.practicum.shareit.booking.enums.BookingEventType;
+import ru.practicum.shareit.booking.enums.BookingTicketStatus;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingTicketEvent;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.exception.BookingIntakeFullException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
+import ru.practicum.shareit.item.stats.ItemStatsRecorder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь асинхронных бронирований. Проверенное бронирование получает талон и ставится в очередь
+ * на shareit.bookings.intake.capacity мест, один поток-писатель забирает до batch-size бронирований
+ * и сохраняет их JDBC batch в одной транзакции. Бронирование, которое пересекается с уже занятым
+ * интервалом или с другим бронированием той же пачки, получает отказ, остальные сохраняются.
+ * Если пачка не сохранилась целиком, ее бронирования сохраняются по одному.
+ * <p>
+ * Талоны хранятся в памяти узла (последние max-tickets), итог можно получить по id талона
+ * или из SSE потока событий бронирований.
+ */
+@Component
+@Slf4j
+public class BookingIntakeQueue implements MeterBinder {
+
+    private static final String CONFLICT_ERROR = "Вещь уже забронирована на это время.";
+    private static final String WRITE_ERROR = "Не удалось сохранить бронирование.";
+
+    private final BookingBatchRepository bookingBatchRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemResponseCache itemResponseCache;
+    private final ItemStatsRecorder itemStatsRecorder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, Ticket> tickets;
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public BookingIntakeQueue(BookingBatchRepository bookingBatchRepository,
+                              BookingIntervalIndex bookingIntervalIndex,
+                              ItemResponseCache itemResponseCache,
+                              ItemStatsRecorder itemStatsRecorder,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${shareit.bookings.intake.capacity:10000}") int capacity,
+                              @Value("${shareit.bookings.intake.batch-size:100}") int batchSize,
+                              @Value("${shareit.bookings.intake.max-tickets:100000}") int maxTickets) {
+        this.bookingBatchRepository = bookingBatchRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemResponseCache = itemResponseCache;
+        this.itemStatsRecorder = itemStatsRecorder;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.tickets = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ticket> eldest) {
+                return size() > maxTickets;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::run, "booking-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public BookingTicketDto submit(Booking booking) {
+        BookingTicketDto ticket = BookingTicketDto.builder()
+                .id(UUID.randomUUID().toString())
+                .status(BookingTicketStatus.PENDING)
+                .build();
+        synchronized (tickets) {
+            tickets.put(ticket.getId(), new Ticket(booking.getBooker().getId(), ticket));
+        }
+        if (!running || !queue.offer(new Pending(ticket.getId(), booking))) {
+            synchronized (tickets) {
+                tickets.remove(ticket.getId());
+            }
+            log.info("Очередь асинхронных бронирований заполнена, бронирование не принято.");
+            throw new BookingIntakeFullException("Очередь бронирований заполнена, повторите запрос позже.");
+        }
+        return ticket;
+    }
+
+    public Optional<BookingTicketDto> getTicket(Long userId, String ticketId) {
+        synchronized (tickets) {
+            Ticket ticket = tickets.get(ticketId);
+            return ticket != null && ticket.bookerId.equals(userId) ? Optional.of(ticket.dto) : Optional.empty();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("shareit.bookings.intake.queue", this, BookingIntakeQueue::getQueueSize)
+                .description("Бронирования, ожидающие записи в базу")
+                .register(registry);
+    }
+
+    /**
+     * Забирает из очереди и сохраняет одну пачку, возвращает число обработанных бронирований.
+     */
+    int drain(long timeoutMillis) throws InterruptedException {
+        Pending first = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<Pending> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обработать пачку из {} бронирований.", batch.size(), e);
+            batch.forEach(pending -> fail(pending, WRITE_ERROR));
+        }
+        return batch.size();
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                drain(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Pending> saved = new ArrayList<>();
+        List<Pending> conflicts = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(batch, saved, conflicts));
+        } catch (DataAccessException e) {
+            log.info("Пачка из {} бронирований не сохранена, сохраняем по одному: {}", batch.size(),
+                    e.getMessage());
+            saved.clear();
+            conflicts.clear();
+            for (Pending pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> save(List.of(pending), saved, conflicts));
+                } catch (DataIntegrityViolationException rowException) {
+                    // booking_no_overlap: то же время уже заняли с другого узла
+                    conflicts.add(pending);
+                } catch (DataAccessException rowException) {
+                    fail(pending, WRITE_ERROR);
+                }
+            }
+        }
+        conflicts.forEach(pending -> fail(pending, CONFLICT_ERROR));
+        saved.forEach(pending -> complete(pending, BookingTicketDto.builder()
+                .id(pending.ticketId)
+                .status(BookingTicketStatus.CREATED)
+                .bookingId(pending.booking.getId())
+                .build()));
+    }
+
+    private void save(List<Pending> batch, List<Pending> saved, List<Pending> conflicts) {
+        List<Pending> accepted = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            Booking booking = pending.booking;
+            try {
+                bookingIntervalIndex.acquire(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                if (accepted.stream().anyMatch(other -> overlaps(other.booking, booking))) {
+                    throw new BookingConflictException(CONFLICT_ERROR);
+                }
+                accepted.add(pending);
+            } catch (BookingConflictException e) {
+                conflicts.add(pending);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<Booking> bookings = new ArrayList<>(accepted.size());
+        accepted.forEach(pending -> bookings.add(pending.booking));
+        bookingBatchRepository.saveAll(bookings);
+        for (Booking booking : bookings) {
+            bookingIntervalIndex.reserve(booking);
+            itemResponseCache.evict(booking.getItem().getId());
+            itemStatsRecorder.recordCreated(booking);
+            eventPublisher.publishEvent(new BookingEvent(BookingEventType.CREATED, booking.getOwnerId(),
+                    booking.getBooker().getId(), BookingMapper.toBookingInfoDto(booking)));
+        }
+        saved.addAll(accepted);
+    }
+
+    private static boolean overlaps(Booking first, Booking second) {
+        return first.getItem().getId().equals(second.getItem().getId())
+                && first.getStart().isBefore(second.getEnd())
+                && second.getStart().isBefore(first.getEnd());
+    }
+
+    private void fail(Pending pending, String error) {
+        complete(pending, BookingTicketDto.builder()
+                .id(pending.ticketId)
+                .status(BookingTicketStatus.FAILED)
+                .error(error)
+                .build());
+    }
+
+    private void complete(Pending pending, BookingTicketDto result) {
+        Long bookerId = pending.booking.getBooker().getId();
+        synchronized (tickets) {
+            tickets.put(result.getId(), new Ticket(bookerId, result));
+        }
+        eventPublisher.publishEvent(new BookingTicketEvent(bookerId, result));
+    }
+
+    private static class Pending {
+        private final String ticketId;
+        private final Booking booking;
+
+        private Pending(String ticketId, Booking booking) {
+            this.ticketId = ticketId;
+            this.booking = booking;
+        }
+    }
+
+    private static class Ticket {
+        private final Long bookerId;
+        private final BookingTicketDto dto;
+
+        private Ticket(Long bookerId, BookingTicketDto dto) {
+            this.bookerId = bookerId;
+            this.dto = dto;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.booking.interval;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BookingConflictException;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Индекс занятости вещей: для каждой вещи дерево интервалов ее APPROVED и WAITING бронирований.
+ * Дерево загружается из базы при первом обращении к вещи (только бронирования, которые еще не закончились,
+ * новые бронирования в прошлом невозможны) и дальше поддерживается изменениями бронирований.
+ * Число вещей в памяти ограничено shareit.bookings.intervals.max-items, давно не использованные вытесняются.
+ * <p>
+ * Деревья защищены блокировками, разбитыми на LOCK_STRIPES полос по id вещи. acquire и reserve держат
+ * блокировку вещи до конца транзакции, поэтому проверка, вставка и коммит бронирований одной вещи на этом узле
+ * выполняются по очереди. Между узлами пересечения не допускает ограничение booking_no_overlap в PostgreSQL,
+ * а найденный в дереве конфликт перепроверяется по базе: бронирование могли отклонить на другом узле.
+ */
+@Component
+@Slf4j
+public class BookingIntervalIndex {
+
+    public static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+
+    static final int LOCK_STRIPES = 256;
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, BookingIntervalTree> trees;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.bookings.intervals.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BookingIntervalTree> eldest) {
+                return size() > maxItems;
+            }
+        };
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Занимает интервал бронирования или бросает BookingConflictException, если он пересекается
+     * с другим APPROVED или WAITING бронированием вещи. Блокировка вещи держится до конца транзакции,
+     * при откате интервал освобождается.
+     */
+    public void reserve(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        ReentrantLock lock = stripe(itemId);
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                put(itemId, booking);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status != STATUS_COMMITTED) {
+                        remove(itemId, booking.getId());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        put(itemId, booking);
+    }
+
+    /**
+     * Берет блокировку вещи до конца текущей транзакции и проверяет, что интервал свободен.
+     * Вызывается до записи бронирования в базу: конфликт отсекается без вставки и отката строки,
+     * а блокировка вещи всегда берется раньше строк booking, и потоки не ждут друг друга по кругу.
+     */
+    public void acquire(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ReentrantLock lock = stripe(itemId);
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                checkFree(tree(itemId), itemId, start, end, null);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        checkFree(tree(itemId), itemId, start, end, null);
+    }
+
+    public void release(Booking booking) {
+        release(booking.getItem().getId(), booking.getId());
+    }
+
+    public void release(Long itemId, Long bookingId) {
+        afterCommit(() -> {
+            ReentrantLock lock = stripe(itemId);
+            lock.lock();
+            try {
+                remove(itemId, bookingId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public void clear() {
+        afterCommit(() -> {
+            synchronized (trees) {
+                trees.clear();
+            }
+        });
+    }
+
+    private void put(Long itemId, Booking booking) {
+        BookingIntervalTree tree = tree(itemId);
+        checkFree(tree, itemId, booking.getStart(), booking.getEnd(), booking.getId());
+        tree.put(booking.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    private void checkFree(BookingIntervalTree tree, Long itemId, LocalDateTime start, LocalDateTime end,
+                           Long bookingId) {
+        Long overlap;
+        while ((overlap = tree.findOverlap(start, end, bookingId)) != null) {
+            if (bookingRepository.existsByIdAndStatusIn(overlap, BLOCKING_STATUSES)) {
+                log.info("Бронирование вещи с ID {} пересекается с бронированием с ID {}.", itemId, overlap);
+                throw new BookingConflictException("Вещь уже забронирована на это время.");
+            }
+            tree.remove(overlap);
+        }
+    }
+
+    private BookingIntervalTree tree(Long itemId) {
+        synchronized (trees) {
+            BookingIntervalTree tree = trees.get(itemId);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        BookingIntervalTree loaded = new BookingIntervalTree();
+        bookingRepository.findAllByItem_IdAndStatusInAndEndIsAfter(itemId, BLOCKING_STATUSES, LocalDateTime.now())
+                .forEach(booking -> loaded.put(booking.getId(), booking.getStart(), booking.getEnd()));
+        synchronized (trees) {
+            BookingIntervalTree tree = trees.putIfAbsent(itemId, loaded);
+            return tree != null ? tree : loaded;
+        }
+    }
+
+    private void remove(Long itemId, Long bookingId) {
+        BookingIntervalTree tree;
+        synchronized (trees) {
+            tree = trees.get(itemId);
+        }
+        if (tree != null) {
+            tree.remove(bookingId);
+        }
+    }
+
+    private ReentrantLock stripe(Long itemId) {
+        return locks[(Long.hashCode(itemId) & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
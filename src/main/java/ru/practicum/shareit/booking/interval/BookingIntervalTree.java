@@ -0,0 +1,164 @@
+package ru.practicum.shareit.booking.interval;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Дерево интервалов бронирований одной вещи: декартово дерево по (start, id),
+ * в каждом узле хранится максимальный end поддерева. Интервалы полуоткрытые [start, end),
+ * поэтому бронирования встык не пересекаются. Вставка, удаление и поиск пересечения - O(log n).
+ * Не потокобезопасно, синхронизацию обеспечивает BookingIntervalIndex.
+ */
+class BookingIntervalTree {
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private Node root;
+
+    void put(Long bookingId, LocalDateTime start, LocalDateTime end) {
+        remove(bookingId);
+        Node node = new Node(bookingId, start, end);
+        nodes.put(bookingId, node);
+        root = insert(root, node);
+    }
+
+    void remove(Long bookingId) {
+        Node node = nodes.remove(bookingId);
+        if (node != null) {
+            root = remove(root, node);
+        }
+    }
+
+    /**
+     * Возвращает id любого бронирования, пересекающегося с [start, end), кроме excludeId, или null.
+     */
+    Long findOverlap(LocalDateTime start, LocalDateTime end, Long excludeId) {
+        Node overlap = findOverlap(root, start, end, excludeId);
+        return overlap == null ? null : overlap.bookingId;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    private static Node findOverlap(Node node, LocalDateTime start, LocalDateTime end, Long excludeId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return null;
+        }
+        Node overlap = findOverlap(node.left, start, end, excludeId);
+        if (overlap != null) {
+            return overlap;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (node.end.isAfter(start) && !node.bookingId.equals(excludeId)) {
+            return node;
+        }
+        return findOverlap(node.right, start, end, excludeId);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node remove(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (compare(removed, node) < 0) {
+            node.left = remove(node.left, removed);
+        } else {
+            node.right = remove(node.right, removed);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(Node first, Node second) {
+        int byStart = first.start.compareTo(second.start);
+        return byStart != 0 ? byStart : first.bookingId.compareTo(second.bookingId);
+    }
+
+    private static class Node {
+        private final Long bookingId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            this.bookingId = bookingId;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package ru.practicum.shareit.booking.mapper;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
 import ru.practicum.shareit.user.dto.UserInfoDto;
@@ -17,6 +19,20 @@ public class BookingMapper {
                 .build();
     }
 
+    public static Booking toBooking(ArchivedBooking archivedBooking) {
+        return Booking.builder()
+                .id(archivedBooking.getId())
+                .start(archivedBooking.getStart())
+                .end(archivedBooking.getEnd())
+                .item(archivedBooking.getItem())
+                .booker(archivedBooking.getBooker())
+                .ownerId(archivedBooking.getOwnerId())
+                .status(archivedBooking.getStatus())
+                .created(archivedBooking.getCreated())
+                .version(archivedBooking.getVersion())
+                .build();
+    }
+
     public static BookingInfoDto toBookingInfoDto(Booking booking) {
         return BookingInfoDto.builder()
                 .id(booking.getId())
@@ -43,6 +59,15 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingItemDto toBookingItem(BookingItemView booking) {
+        return BookingItemDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBookerId())
+                .start(booking.getStartDate())
+                .end(booking.getEndDate())
+                .build();
+    }
+
     public static BookingDto toBookingDto(Booking booking) {
         return BookingDto.builder()
                 .id(booking.getId())
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Завершившееся бронирование, перенесенное из booking в booking_archive. Id сохраняется прежним.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "booking_archive")
+@Getter
+@Setter
+@ToString
+public class ArchivedBooking {
+    @Id
+    private Long id;
+
+    @Column(name = "start_date")
+    private LocalDateTime start;
+
+    @Column(name = "end_date")
+    private LocalDateTime end;
+
+    @ManyToOne
+    @JoinColumn(name = "item_id", referencedColumnName = "id")
+    private Item item;
+
+    @ManyToOne
+    @JoinColumn(name = "booker_id", referencedColumnName = "id")
+    private User booker;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    private LocalDateTime created;
+
+    private Long version;
+}
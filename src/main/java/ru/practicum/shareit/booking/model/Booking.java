@@ -35,6 +35,14 @@ public class Booking {
     @JoinColumn(name = "booker_id", referencedColumnName = "id")
     private User booker;
 
+    @Column(name = "owner_id")
+    private Long ownerId;
+
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+
+    private LocalDateTime created;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingArchiveRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO booking_archive (id, start_date, end_date, status, item_id, booker_id, owner_id, " +
+            "created, version) " +
+            "SELECT b.id, b.start_date, b.end_date, b.status, b.item_id, b.booker_id, b.owner_id, b.created, " +
+            "b.version " +
+            "FROM booking b " +
+            "WHERE b.id IN (:ids)",
+            nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ArchivedBooking a SET a.ownerId = :ownerId WHERE a.item.id = :itemId")
+    int updateOwnerByItemId(@Param("itemId") Long itemId, @Param("ownerId") Long ownerId);
+
+    @Query(value = "SELECT ranked.id AS id, ranked.item_id AS itemId, ranked.booker_id AS bookerId, " +
+            "ranked.start_date AS startDate, ranked.end_date AS endDate " +
+            "FROM (SELECT a.id, a.item_id, a.booker_id, a.start_date, a.end_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY a.item_id ORDER BY a.start_date DESC) AS position " +
+            "FROM booking_archive a " +
+            "WHERE a.item_id IN (:itemIds) AND a.status <> 'REJECTED') ranked " +
+            "WHERE ranked.position = 1",
+            nativeQuery = true)
+    List<BookingItemView> findLastBookings(@Param("itemIds") Collection<Long> itemIds);
+
+    boolean existsByBooker_IdAndItem_Id(Long bookerId, Long itemId);
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class BookingBatchRepository {
+
+    private static final String INSERT_BOOKING = "INSERT INTO booking (start_date, end_date, status, item_id, "
+            + "booker_id, owner_id, created, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Booking> saveAll(List<Booking> bookings) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Booking>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_BOOKING, new String[]{"id"})) {
+                for (Booking booking : bookings) {
+                    statement.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                    statement.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                    statement.setString(3, booking.getStatus().name());
+                    statement.setLong(4, booking.getItem().getId());
+                    statement.setLong(5, booking.getBooker().getId());
+                    statement.setLong(6, booking.getOwnerId());
+                    if (booking.getCreated() == null) {
+                        booking.setCreated(LocalDateTime.now());
+                    }
+                    statement.setTimestamp(7, Timestamp.valueOf(booking.getCreated()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Booking booking : bookings) {
+                        keys.next();
+                        booking.setId(keys.getLong(1));
+                        booking.setVersion(0L);
+                    }
+                }
+                return bookings;
+            }
+        });
+    }
+}
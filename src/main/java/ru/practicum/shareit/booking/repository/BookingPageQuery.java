@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+import ru.practicum.shareit.booking.enums.BookingState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Параметры страницы бронирований: чьи бронирования (арендатора или владельца вещей), состояние
+ * и позиция. Позиция задается ключом последней отданной записи (afterStart, afterId) или,
+ * для первой страницы старого API, смещением offset.
+ */
+@Getter
+@Builder
+public class BookingPageQuery {
+    private final Long userId;
+    private final boolean owner;
+    private final BookingState state;
+    private final LocalDateTime now;
+    private final LocalDateTime afterStart;
+    private final Long afterId;
+    private final int offset;
+    private final int limit;
+}
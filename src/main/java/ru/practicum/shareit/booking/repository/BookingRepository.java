@@ -2,39 +2,84 @@ package ru.practicum.shareit.booking.repository;
 
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long userId, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndEndIsBefore(Long userId, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByBookerIdAndStartIsAfter(Long userId, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfter(Long userId, LocalDateTime dateTime, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByBookerIdAndStatus(Long userId, BookingStatus bookingStatus);
-
-    List<Booking> findAllByItem_Owner_IdOrderByStartDesc(Long userId, Pageable pageable);
-
-    List<Booking> findAllByItem_Owner_IdAndEndIsBefore(Long userId, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByItem_Owner_IdAndStartIsAfter(Long userId, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByItem_Owner_IdAndStartIsBeforeAndEndIsAfter(Long userId, LocalDateTime dateTime, LocalDateTime date, Sort sort);
-
-    List<Booking> findAllByItem_Owner_IdAndStatus(Long userId, BookingStatus bookingStatus);
-
-    List<Booking> findAllByItemIdOrderByStartAsc(Long itemId);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+
+    @Query(value = "SELECT ranked.id AS id, ranked.item_id AS itemId, ranked.booker_id AS bookerId, " +
+            "ranked.start_date AS startDate, ranked.end_date AS endDate " +
+            "FROM (SELECT b.id, b.item_id, b.booker_id, b.start_date, b.end_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id, CASE WHEN b.start_date < :now THEN 0 ELSE 1 END " +
+            "ORDER BY CASE WHEN b.start_date < :now THEN b.start_date END DESC, b.start_date) AS position " +
+            "FROM booking b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status <> 'REJECTED' AND b.start_date <> :now) ranked " +
+            "WHERE ranked.position = 1",
+            nativeQuery = true)
+    List<BookingItemView> findLastAndNextBookings(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("now") LocalDateTime now);
+
+    List<Booking> findAllByItem_IdAndStatusInAndEndIsAfter(Long itemId, Collection<BookingStatus> statuses,
+                                                           LocalDateTime date);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.ownerId = :ownerId AND b.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("ownerId") Long ownerId, @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.ownerId = :ownerId WHERE b.item.id = :itemId")
+    int updateOwnerByItemId(@Param("itemId") Long itemId, @Param("ownerId") Long ownerId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id IN (:ids) AND b.status = :expected")
+    int updateStatusIn(@Param("ids") Collection<Long> ids, @Param("expected") BookingStatus expected,
+                       @Param("status") BookingStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id AS id, b.item.id AS itemId, b.booker.id AS bookerId, " +
+            "b.start AS startDate, b.end AS endDate " +
+            "FROM Booking b " +
+            "WHERE b.status = :status AND b.start < :now " +
+            "ORDER BY b.start")
+    List<BookingItemView> lockStartedBookings(@Param("status") BookingStatus status, @Param("now") LocalDateTime now,
+                                              Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id AS id, b.status AS status " +
+            "FROM Booking b " +
+            "WHERE b.id IN (:ids) AND b.ownerId = :ownerId " +
+            "ORDER BY b.id")
+    List<BookingStatusView> lockOwnerBookings(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item JOIN FETCH b.booker WHERE b.id IN (:ids)")
+    List<Booking> findAllWithItemAndBookerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM Booking b WHERE b.end < :before ORDER BY b.end")
+    List<Long> lockEndedBookings(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Booking b WHERE b.id IN (:ids)")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByIdAndStatusIn(Long id, Collection<BookingStatus> statuses);
 
     List<Booking> findByBooker_IdAndItem_IdOrderByStartAsc(Long userId, Long itemId);
 }
\ No newline at end of file
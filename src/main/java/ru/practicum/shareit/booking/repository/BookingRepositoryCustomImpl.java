@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Страница бронирований по ключу (start_date, id) в порядке убывания. Условие состояния и позиция
+ * страницы выполняются в SQL, поэтому читаются только строки страницы, а не вся история пользователя.
+ * <p>
+ * Завершившиеся бронирования переносятся в booking_archive. Архив читается, только если страница
+ * доходит до самого позднего start_date архивных бронирований пользователя (один запрос по индексу),
+ * тогда страница собирается слиянием строк booking и booking_archive в том же порядке.
+ */
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private static final Comparator<Booking> PAGE_ORDER = Comparator.comparing(Booking::getStart)
+            .thenComparing(Booking::getId)
+            .reversed();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findPage(BookingPageQuery query) {
+        List<Booking> page = find("Booking", Booking.class, query, query.getOffset(), query.getLimit());
+        if (query.getState() == BookingState.FUTURE || query.getState() == BookingState.CURRENT) {
+            return page;
+        }
+        LocalDateTime latestArchived = findLatestArchivedStart(query);
+        if (latestArchived == null
+                || page.size() == query.getLimit() && page.get(page.size() - 1).getStart().isAfter(latestArchived)) {
+            return page;
+        }
+
+        int window = query.getOffset() + query.getLimit();
+        if (query.getOffset() > 0) {
+            page = find("Booking", Booking.class, query, 0, window);
+        }
+        List<Booking> merged = new ArrayList<>(page);
+        find("ArchivedBooking", ArchivedBooking.class, query, 0, window).stream()
+                .map(BookingMapper::toBooking)
+                .forEach(merged::add);
+        return merged.stream()
+                .sorted(PAGE_ORDER)
+                .skip(query.getOffset())
+                .limit(query.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    private LocalDateTime findLatestArchivedStart(BookingPageQuery query) {
+        return entityManager.createQuery("SELECT MAX(a.start) FROM ArchivedBooking a WHERE "
+                        + (query.isOwner() ? "a.ownerId = :userId" : "a.booker.id = :userId"), LocalDateTime.class)
+                .setParameter("userId", query.getUserId())
+                .getSingleResult();
+    }
+
+    private <T> List<T> find(String entity, Class<T> type, BookingPageQuery query, int offset, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT b FROM ").append(entity)
+                .append(" b JOIN FETCH b.item JOIN FETCH b.booker WHERE ")
+                .append(query.isOwner() ? "b.ownerId = :userId" : "b.booker.id = :userId");
+        switch (query.getState()) {
+            case PAST:
+                jpql.append(" AND b.end < :now");
+                break;
+            case FUTURE:
+                jpql.append(" AND b.start > :now");
+                break;
+            case CURRENT:
+                jpql.append(" AND b.start < :now AND b.end > :now");
+                break;
+            case WAITING:
+            case REJECTED:
+                jpql.append(" AND b.status = :status");
+                break;
+            default:
+                break;
+        }
+        if (query.getAfterId() != null) {
+            jpql.append(" AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId))");
+        }
+        jpql.append(" ORDER BY b.start DESC, b.id DESC");
+
+        TypedQuery<T> page = entityManager.createQuery(jpql.toString(), type)
+                .setParameter("userId", query.getUserId());
+        switch (query.getState()) {
+            case PAST:
+            case FUTURE:
+            case CURRENT:
+                page.setParameter("now", query.getNow());
+                break;
+            case WAITING:
+            case REJECTED:
+                page.setParameter("status", BookingStatus.valueOf(query.getState().name()));
+                break;
+            default:
+                break;
+        }
+        if (query.getAfterId() != null) {
+            page.setParameter("afterStart", query.getAfterStart())
+                    .setParameter("afterId", query.getAfterId());
+        }
+        return page.setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 
 import javax.transaction.Transactional;
 import java.util.List;
@@ -10,11 +14,20 @@ public interface BookingService {
     @Transactional
     BookingInfoDto addBooking(Long userId, BookingDto bookingDto);
 
+    BookingTicketDto addBookingAsync(Long userId, BookingDto bookingDto);
+
+    BookingTicketDto getTicket(Long userId, String ticketId);
+
     BookingInfoDto updateBookingStatus(Long userId, Long bookingId, boolean approved);
 
+    List<BookingDecisionResultDto> updateBookingStatuses(Long userId, List<Long> bookingIds, boolean approved);
+
     BookingInfoDto getCurrentBooking(Long userId, Long bookingId);
 
-    List<BookingInfoDto> getBooking(Long userId, String stateParam, Integer from, Integer size);
+    KeysetPage<BookingInfoDto> getBooking(Long userId, String stateParam, String after, Integer from, Integer size);
+
+    KeysetPage<BookingInfoDto> getOwnerBooking(Long userId, String stateParam, String after, Integer from,
+                                               Integer size);
 
-    List<BookingInfoDto> getOwnerBooking(Long userId, String stateParam, Integer from, Integer size);
+    SseEmitter subscribe(Long userId);
 }
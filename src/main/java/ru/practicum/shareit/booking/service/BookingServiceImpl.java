@@ -2,30 +2,48 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+import ru.practicum.shareit.booking.enums.BookingEventType;
 import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.intake.BookingIntakeQueue;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingPageQuery;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.validator.BookingValidator;
+import ru.practicum.shareit.exception.BookingConflictException;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.UnknownBookingState;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.stats.ItemStatsRecorder;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,14 +55,54 @@ public class BookingServiceImpl implements BookingService {
     private static final String ITEM_ERROR = "Такой вещи не существует.";
     private static final String BOOKING_ERROR = "Бронирование не найдено.";
     private static final String BOOKING_STATE_ERROR = "Неизвестный статус бронирования.";
+    private static final String BOOKING_CONFLICT_ERROR = "Вещь уже забронирована на это время.";
+    static final int MAX_DECISIONS = 500;
 
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final UserCache userCache;
     private final ItemRepository itemRepository;
+    private final ItemResponseCache itemResponseCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingEventHub bookingEventHub;
+    private final BookingIntakeQueue bookingIntakeQueue;
+    private final ItemStatsRecorder itemStatsRecorder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
     public BookingInfoDto addBooking(Long userId, BookingDto bookingDto) {
+        Booking booking = prepareBooking(userId, bookingDto);
+        Item item = booking.getItem();
+
+        bookingIntervalIndex.acquire(item.getId(), booking.getStart(), booking.getEnd());
+        Booking saved;
+        try {
+            saved = bookingRepository.save(booking);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Бронирование вещи с ID {} отклонено ограничением базы: {}", item.getId(), e.getMessage());
+            throw new BookingConflictException(BOOKING_CONFLICT_ERROR);
+        }
+        bookingIntervalIndex.reserve(saved);
+        itemResponseCache.evict(item.getId());
+        itemStatsRecorder.recordCreated(saved);
+        return publish(BookingEventType.CREATED, saved);
+    }
+
+    @Override
+    public BookingTicketDto addBookingAsync(Long userId, BookingDto bookingDto) {
+        Booking booking = prepareBooking(userId, bookingDto);
+        bookingIntervalIndex.acquire(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+        return bookingIntakeQueue.submit(booking);
+    }
+
+    @Override
+    public BookingTicketDto getTicket(Long userId, String ticketId) {
+        return bookingIntakeQueue.getTicket(userId, ticketId)
+                .orElseThrow(() -> new ObjectNotFoundException("Талон бронирования не найден."));
+    }
+
+    private Booking prepareBooking(Long userId, BookingDto bookingDto) {
         if (!BookingValidator.isBookingTimeIntervalValid(bookingDto)) {
             log.info("BookingDto недействителен.");
             throw new InvalidEntityException("BookingDto недействителен.");
@@ -60,7 +118,7 @@ public class BookingServiceImpl implements BookingService {
             throw new InvalidEntityException(ITEM_ERROR);
         }
 
-        User user = userRepository.findById(userId)
+        User user = userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_ERROR));
 
         if (user.getId().equals(item.getOwner().getId())) {
@@ -68,44 +126,128 @@ public class BookingServiceImpl implements BookingService {
         }
         booking.setBooker(user);
         booking.setItem(item);
+        booking.setOwnerId(item.getOwner().getId());
         booking.setStatus(BookingStatus.WAITING);
-
-        return BookingMapper.toBookingInfoDto(bookingRepository.save(booking));
+        booking.setCreated(LocalDateTime.now());
+        return booking;
     }
 
     @Override
+    @Transactional
     public BookingInfoDto updateBookingStatus(Long userId, Long bookingId, boolean approved) {
+        BookingStatus bookingStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+
+        int updated;
+        try {
+            updated = bookingRepository.updateStatus(bookingId, userId, BookingStatus.WAITING, bookingStatus);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Решение по бронированию с ID {} отклонено ограничением базы: {}", bookingId, e.getMessage());
+            throw new BookingConflictException(BOOKING_CONFLICT_ERROR);
+        }
+        if (updated == 0) {
+            throw statusUpdateError(userId, bookingId);
+        }
 
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ObjectNotFoundException(BOOKING_ERROR));
+        if (!approved) {
+            bookingIntervalIndex.release(booking);
+        }
+        itemResponseCache.evict(booking.getItem().getId());
+        itemStatsRecorder.recordDecision(booking, bookingStatus);
+        return publish(approved ? BookingEventType.APPROVED : BookingEventType.REJECTED, booking);
+    }
 
-        User user = userRepository.findById(userId)
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_ERROR));
+        return bookingEventHub.subscribe(userId);
+    }
 
-        Item item = booking.getItem();
+    private Booking findBooking(Long bookingId) {
+        return bookingRepository.findById(bookingId)
+                .or(() -> bookingArchiveRepository.findById(bookingId).map(BookingMapper::toBooking))
+                .orElseThrow(() -> new ObjectNotFoundException(BOOKING_ERROR));
+    }
 
-        if (!item.getOwner().getId().equals(userId)) {
-            log.info("Невозможно подтвердить бронирование. Пользователь не является владельцем этого объекта.");
-            throw new ObjectNotFoundException("Невозможно подтвердить бронирование. Пользователь не является владельцем этого объекта.");
-        }
+    private BookingInfoDto publish(BookingEventType type, Booking booking) {
+        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
+        eventPublisher.publishEvent(new BookingEvent(type, booking.getOwnerId(), booking.getBooker().getId(),
+                bookingInfoDto));
+        return bookingInfoDto;
+    }
 
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> updateBookingStatuses(Long userId, List<Long> bookingIds,
+                                                                boolean approved) {
+        if (bookingIds == null || bookingIds.isEmpty() || bookingIds.size() > MAX_DECISIONS
+                || bookingIds.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidEntityException("Список бронирований должен содержать от 1 до " + MAX_DECISIONS + " id.");
+        }
         BookingStatus bookingStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
 
-        if (booking.getStatus() == bookingStatus) {
-            log.info("Статус: " + bookingStatus);
-            throw new InvalidEntityException("Статус: " + bookingStatus);
+        Map<Long, BookingStatus> statuses = bookingRepository.lockOwnerBookings(ids, userId).stream()
+                .collect(Collectors.toMap(BookingStatusView::getId, BookingStatusView::getStatus));
+        List<Long> waiting = statuses.entrySet().stream()
+                .filter(entry -> entry.getValue() == BookingStatus.WAITING)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (!waiting.isEmpty()) {
+            try {
+                bookingRepository.updateStatusIn(waiting, BookingStatus.WAITING, bookingStatus);
+            } catch (DataIntegrityViolationException e) {
+                log.info("Решение по бронированиям {} отклонено ограничением базы: {}", waiting, e.getMessage());
+                throw new BookingConflictException(BOOKING_CONFLICT_ERROR);
+            }
+            List<Booking> updated = bookingRepository.findAllWithItemAndBookerByIdIn(waiting);
+            for (Booking booking : updated) {
+                if (!approved) {
+                    bookingIntervalIndex.release(booking);
+                }
+                itemStatsRecorder.recordDecision(booking, bookingStatus);
+                publish(approved ? BookingEventType.APPROVED : BookingEventType.REJECTED, booking);
+            }
+            updated.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .distinct()
+                    .forEach(itemResponseCache::evict);
         }
+        log.info("Пользователь с ID {} рассмотрел {} из {} бронирований, статус: {}", userId, waiting.size(),
+                ids.size(), bookingStatus);
+
+        return ids.stream()
+                .map(id -> {
+                    BookingStatus status = statuses.get(id);
+                    if (status == null) {
+                        return BookingDecisionResultDto.builder().id(id).error(BOOKING_ERROR).build();
+                    }
+                    if (status != BookingStatus.WAITING) {
+                        return BookingDecisionResultDto.builder().id(id).status(status)
+                                .error("Бронирование уже рассмотрено.").build();
+                    }
+                    return BookingDecisionResultDto.builder().id(id).status(bookingStatus).build();
+                })
+                .collect(Collectors.toList());
+    }
 
-        booking.setStatus(bookingStatus);
+    private RuntimeException statusUpdateError(Long userId, Long bookingId) {
+        Booking booking = findBooking(bookingId);
 
-        return BookingMapper.toBookingInfoDto(bookingRepository.save(booking));
-    }
+        if (!userId.equals(booking.getOwnerId())) {
+            log.info("Невозможно подтвердить бронирование. Пользователь не является владельцем этого объекта.");
+            return new ObjectNotFoundException("Невозможно подтвердить бронирование. Пользователь не является владельцем этого объекта.");
+        }
 
+        log.info("Бронирование с ID {} уже рассмотрено, статус: {}", bookingId, booking.getStatus());
+        return new InvalidEntityException("Статус: " + booking.getStatus());
+    }
 
     @Override
     public BookingInfoDto getCurrentBooking(Long userId, Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new ObjectNotFoundException(BOOKING_ERROR));
+        Booking booking = findBooking(bookingId);
 
         if (!userId.equals(booking.getItem().getOwner().getId()) && !userId.equals(booking.getBooker().getId())) {
            log.info("Этот пользователь не является владельцем объекта.");
@@ -116,87 +258,52 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingInfoDto> getBooking(Long userId, String stateParam, Integer from, Integer size) {
-
-        if (from < 0 || size < 0) {
-            throw new InvalidEntityException("Аргумент имеет отрицательное значение.");
-        }
-
-        BookingState bookingState = checkState(stateParam);
-
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        List<Booking> bookingList = new ArrayList<>();
-        LocalDateTime dateTimeNow = LocalDateTime.now();
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ObjectNotFoundException(USER_ERROR));
-
-        switch (bookingState) {
-            case ALL:
-                bookingList = bookingRepository.findAllByBookerIdOrderByStartDesc(user.getId(), PageRequest.of((from / size), size));
-                break;
-            case PAST:
-                bookingList = bookingRepository.findAllByBookerIdAndEndIsBefore(user.getId(), dateTimeNow, sort);
-                break;
-            case FUTURE:
-                bookingList = bookingRepository.findAllByBookerIdAndStartIsAfter(user.getId(), dateTimeNow, sort);
-                break;
-            case CURRENT:
-                bookingList = bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(user.getId(), dateTimeNow, dateTimeNow, sort);
-                break;
-            case WAITING:
-                bookingList = bookingRepository.findAllByBookerIdAndStatus(user.getId(), BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookingList = bookingRepository.findAllByBookerIdAndStatus(user.getId(), BookingStatus.REJECTED);
-                break;
-        }
-
-        return bookingList.isEmpty() ? Collections.emptyList() : bookingList.stream()
-                .map(BookingMapper::toBookingInfoDto)
-                .collect(Collectors.toList());
+    public KeysetPage<BookingInfoDto> getBooking(Long userId, String stateParam, String after, Integer from,
+                                                 Integer size) {
+        return getPage(userId, false, stateParam, after, from, size);
     }
 
     @Override
-    public List<BookingInfoDto> getOwnerBooking(Long userId, String stateParam, Integer from, Integer size) {
+    public KeysetPage<BookingInfoDto> getOwnerBooking(Long userId, String stateParam, String after, Integer from,
+                                                      Integer size) {
+        return getPage(userId, true, stateParam, after, from, size);
+    }
 
-        if (from < 0 || size < 0) {
+    private KeysetPage<BookingInfoDto> getPage(Long userId, boolean owner, String stateParam, String after,
+                                               Integer from, Integer size) {
+        if (from < 0 || size <= 0) {
             throw new InvalidEntityException("Аргумент имеет отрицательное значение.");
         }
 
         BookingState bookingState = checkState(stateParam);
 
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        List<Booking> bookingList = new ArrayList<>();
-        LocalDateTime dateTimeNow = LocalDateTime.now();
-
-        User user = userRepository.findById(userId)
+        User user = userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_ERROR));
 
-        switch (bookingState) {
-            case ALL:
-                bookingList = bookingRepository.findAllByItem_Owner_IdOrderByStartDesc(user.getId(), PageRequest.of((from / size), size));
-                break;
-            case PAST:
-                bookingList = bookingRepository.findAllByItem_Owner_IdAndEndIsBefore(user.getId(), dateTimeNow, sort);
-                break;
-            case FUTURE:
-                bookingList = bookingRepository.findAllByItem_Owner_IdAndStartIsAfter(user.getId(), dateTimeNow, sort);
-                break;
-            case CURRENT:
-                bookingList = bookingRepository.findAllByItem_Owner_IdAndStartIsBeforeAndEndIsAfter(user.getId(), dateTimeNow, dateTimeNow, sort);
-                break;
-            case WAITING:
-                bookingList = bookingRepository.findAllByItem_Owner_IdAndStatus(user.getId(), BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookingList = bookingRepository.findAllByItem_Owner_IdAndStatus(user.getId(), BookingStatus.REJECTED);
-                break;
+        BookingPageQuery.BookingPageQueryBuilder query = BookingPageQuery.builder()
+                .userId(user.getId())
+                .owner(owner)
+                .state(bookingState)
+                .now(LocalDateTime.now())
+                .limit(size + 1);
+        if (after != null) {
+            KeysetCursor.decode(after, 2, keys -> query
+                    .afterStart(LocalDateTime.parse(keys[0]))
+                    .afterId(Long.valueOf(keys[1])));
+        } else {
+            query.offset(from / size * size);
         }
 
-        return bookingList.isEmpty() ? Collections.emptyList() : bookingList.stream()
+        List<Booking> bookings = bookingRepository.findPage(query.build());
+        String nextCursor = null;
+        if (bookings.size() > size) {
+            bookings = bookings.subList(0, size);
+            Booking last = bookings.get(size - 1);
+            nextCursor = KeysetCursor.encode(last.getStart(), last.getId());
+        }
+        return new KeysetPage<>(bookings.stream()
                 .map(BookingMapper::toBookingInfoDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), nextCursor);
     }
 
     private BookingState checkState(String state) {
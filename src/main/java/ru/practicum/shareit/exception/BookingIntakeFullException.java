@@ -0,0 +1,8 @@
+package ru.practicum.shareit.exception;
+
+public class BookingIntakeFullException extends RuntimeException {
+
+    public BookingIntakeFullException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.exception.exceptionHandler;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,6 +24,24 @@ public class ErrorHandler {
         return Map.of("409 ENTITY ALREADY EXISTS", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleBookingConflict(final BookingConflictException e) {
+        return Map.of("409 BOOKING CONFLICT", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLockingFailure(final OptimisticLockingFailureException e) {
+        return Map.of("409 CONCURRENT UPDATE", "Объект был изменен другим запросом, повторите попытку.");
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleBookingIntakeFull(final BookingIntakeFullException e) {
+        return Map.of("503 SERVICE UNAVAILABLE", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleBadRequestException(final InvalidEntityException e) {
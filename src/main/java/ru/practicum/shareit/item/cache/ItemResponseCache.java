@@ -0,0 +1,167 @@
+package ru.practicum.shareit.item.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemInfoDto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готовых JSON ответов GET /items/{itemId}.
+ * Тела ответов лежат в direct ByteBuffer вне кучи, общий объем ограничен shareit.items.cache.max-bytes,
+ * при переполнении вытесняются давно не читавшиеся записи.
+ * Для владельца и остальных пользователей хранятся разные варианты: только владелец видит
+ * lastBooking и nextBooking, поэтому его вариант устаревает в момент начала nextBooking.
+ */
+@Component
+@Slf4j
+public class ItemResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Long> owners = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long usedBytes;
+
+    public ItemResponseCache(ObjectMapper objectMapper,
+                             @Value("${shareit.items.cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+    }
+
+    public byte[] get(Long userId, Long itemId, Supplier<ItemInfoDto> loader) {
+        Long ownerId = owners.get(itemId);
+        if (ownerId != null) {
+            byte[] cached = read(new Key(itemId, ownerId.equals(userId)));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long invalidationsBefore = invalidations.get();
+        ItemInfoDto item = loader.get();
+        byte[] body = serialize(item);
+        boolean owner = item.getOwnerId() != null && item.getOwnerId().equals(userId);
+        LocalDateTime expiresAt = owner && item.getNextBooking() != null ? item.getNextBooking().getStart() : null;
+        write(new Key(itemId, owner), item.getOwnerId(), body, expiresAt, invalidationsBefore);
+        return body;
+    }
+
+    public void evict(Long itemId) {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            synchronized (this) {
+                owners.remove(itemId);
+                release(entries.remove(new Key(itemId, true)));
+                release(entries.remove(new Key(itemId, false)));
+            }
+        });
+    }
+
+    public void clear() {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            synchronized (this) {
+                owners.clear();
+                entries.clear();
+                usedBytes = 0;
+            }
+        });
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private synchronized byte[] read(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt != null && !LocalDateTime.now().isBefore(entry.expiresAt)) {
+            release(entries.remove(key));
+            return null;
+        }
+        byte[] body = new byte[entry.body.capacity()];
+        entry.body.duplicate().get(body);
+        return body;
+    }
+
+    private synchronized void write(Key key, Long ownerId, byte[] body, LocalDateTime expiresAt,
+                                    long invalidationsBefore) {
+        if (ownerId == null || body.length > maxBytes || invalidations.get() != invalidationsBefore) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(body.length);
+        buffer.put(body).flip();
+        release(entries.put(key, new Entry(buffer, expiresAt)));
+        owners.put(key.itemId, ownerId);
+        usedBytes += body.length;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            usedBytes -= evicted.getValue().body.capacity();
+            Long evictedItemId = evicted.getKey().itemId;
+            if (!entries.containsKey(new Key(evictedItemId, !evicted.getKey().owner))) {
+                owners.remove(evictedItemId);
+            }
+        }
+        log.debug("Ответ для Item с ID {} сохранен в кэш, занято {} байт.", key.itemId, usedBytes);
+    }
+
+    private void release(Entry entry) {
+        if (entry != null) {
+            usedBytes -= entry.body.capacity();
+        }
+    }
+
+    private byte[] serialize(ItemInfoDto item) {
+        try {
+            return objectMapper.writeValueAsBytes(item);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать Item с ID " + item.getId(), e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Long itemId;
+        private final boolean owner;
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final ByteBuffer body;
+        private final LocalDateTime expiresAt;
+    }
+}
@@ -2,13 +2,25 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
+import ru.practicum.shareit.item.service.ItemBatchService;
 import ru.practicum.shareit.item.service.ItemService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,26 +32,44 @@ public class ItemController {
     private static final String USERID_HEADER = "X-Sharer-User-Id";
 
     private final ItemService itemService;
+    private final ItemBatchService itemBatchService;
+    private final ItemResponseCache itemResponseCache;
 
     @GetMapping
-    public List<ItemInfoDto> getItems(@RequestHeader(USERID_HEADER) Long userId) {
+    public ResponseEntity<List<ItemInfoDto>> getItems(@RequestHeader(USERID_HEADER) Long userId,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) @Positive Integer limit) {
         log.info("Получен GET запрос по эндпоинту /items от User(Owner) c ID {} на получение списка всех своих Items.",
                 userId);
-        return itemService.getItems(userId);
+        return itemService.getItems(userId, after, limit).toResponse();
     }
 
-    @GetMapping("/{itemId}")
-    public ItemInfoDto getItem(@RequestHeader(USERID_HEADER) Long userId, @PathVariable Long itemId) {
+    @GetMapping(value = "/{itemId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getItem(@RequestHeader(USERID_HEADER) Long userId, @PathVariable Long itemId) {
         log.info("Получен GET запрос по эндпоинту /items/{} от User c ID {} на получение Item с ID {}.", itemId, userId,
                 itemId);
-        return itemService.getItem(userId, itemId);
+        return itemResponseCache.get(userId, itemId, () -> itemService.getItem(userId, itemId));
+    }
+
+    @GetMapping("/{itemId}/stats")
+    public ItemStatsDto getItemStats(@RequestHeader(USERID_HEADER) Long userId,
+                                     @PathVariable Long itemId,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Получен GET запрос по эндпоинту /items/{}/stats от User(Owner) c ID {} на получение статистики "
+                + "бронирований Item с ID {}.", itemId, userId, itemId);
+        return itemService.getItemStats(userId, itemId, from, to);
     }
 
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestParam String text) {
+    public List<ItemDto> searchItems(@RequestParam String text,
+                                     @RequestParam(required = false) @PositiveOrZero Integer from,
+                                     @RequestParam(required = false) @Positive Integer size) {
         log.info(
                 "Получен GET запрос по эндпоинту /items/search на получение списка Item по запросу '{}'.", text);
-        return itemService.searchItems(text);
+        return itemService.searchItems(text, from, size);
     }
 
     @PostMapping
@@ -49,6 +79,15 @@ public class ItemController {
         return itemService.addItem(userId, itemDto);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public List<ItemBatchResultDto> addItems(@RequestHeader(USERID_HEADER) Long userId,
+                                             @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                             InputStream body) {
+        log.info("Получен POST запрос по эндпоинту /items/batch от User(Owner) c ID {} на добавление списка Items.",
+                userId);
+        return itemBatchService.addItems(userId, body, MediaType.APPLICATION_NDJSON.includes(contentType));
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(
             @RequestHeader(USERID_HEADER) Long userId,
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ItemBatchResultDto {
+
+    private Integer index;
+    private Long id;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class ItemDayStatsDto {
+
+    private LocalDate date;
+    private Integer bookings;
+    private Integer approved;
+    private Integer rejected;
+    private Double bookedHours;
+}
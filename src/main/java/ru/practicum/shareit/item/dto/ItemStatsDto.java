@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class ItemStatsDto {
+
+    private Long itemId;
+    private LocalDate from;
+    private LocalDate to;
+    private Integer bookings;
+    private Integer approved;
+    private Integer rejected;
+    private Double approvalRate;
+    private Double bookedHours;
+    private Double averageLeadHours;
+    private List<ItemDayStatsDto> days;
+}
@@ -28,6 +28,7 @@ public class ItemMapper {
     public static ItemInfoDto toItemInfo(Item item) {
         return ItemInfoDto.builder()
                 .id(item.getId())
+                .ownerId(item.getOwner() != null ? item.getOwner().getId() : null)
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
@@ -5,6 +5,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Builder
 @AllArgsConstructor
@@ -37,6 +38,19 @@ public class Item {
     @JoinColumn(name = "request_id", referencedColumnName = "id")
     private ItemRequest request;
 
+    @Column(name = "updated")
+    private LocalDateTime updated;
+
+    public Item(Long id, String name, String description, Boolean available, User owner, ItemRequest request) {
+        this(id, name, description, available, owner, request, null);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updated = LocalDateTime.now();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Счетчики бронирований вещи, начинающихся в один день: строка item_booking_stats
+ * или приращение к ней.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ItemDayStats {
+    private Long itemId;
+    private LocalDate date;
+    private int bookings;
+    private int approved;
+    private int rejected;
+    private long bookedMinutes;
+    private long leadMinutes;
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemBatchRepository {
+
+    private static final String INSERT_ITEM = "INSERT INTO item (name, description, available, owner_id, request_id, "
+            + "updated) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Item> saveAll(List<Item> items) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Item>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ITEM, new String[]{"id"})) {
+                for (Item item : items) {
+                    statement.setString(1, item.getName());
+                    statement.setString(2, item.getDescription());
+                    statement.setBoolean(3, item.getAvailable());
+                    statement.setLong(4, item.getOwner().getId());
+                    if (item.getRequest() != null) {
+                        statement.setLong(5, item.getRequest().getId());
+                    } else {
+                        statement.setNull(5, Types.BIGINT);
+                    }
+                    item.setUpdated(LocalDateTime.now());
+                    statement.setTimestamp(6, Timestamp.valueOf(item.getUpdated()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Item> saved = new ArrayList<>(items.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Item item : items) {
+                        keys.next();
+                        item.setId(keys.getLong(1));
+                        saved.add(item);
+                    }
+                }
+                return saved;
+            }
+        });
+    }
+}
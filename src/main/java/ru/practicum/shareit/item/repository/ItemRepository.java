@@ -1,15 +1,18 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
     @Query("SELECT it " +
             "FROM Item it " +
             "WHERE (LOWER(it.name) LIKE LOWER(CONCAT('%', :text, '%') ) OR " +
@@ -17,7 +20,47 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             "AND it.available = true")
     List<Item> search(@Param("text") String text);
 
+    @Query("SELECT it " +
+            "FROM Item it " +
+            "WHERE (LOWER(it.name) LIKE LOWER(CONCAT('%', :text, '%') ) OR " +
+            "LOWER(it.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "AND it.available = true " +
+            "ORDER BY it.id")
+    List<Item> search(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT it.* " +
+            "FROM item it " +
+            "WHERE it.available = true " +
+            "AND (it.search_vector @@ plainto_tsquery('simple', :text) " +
+            "OR LOWER(COALESCE(it.name, '') || ' ' || COALESCE(it.description, '')) LIKE '%' || LOWER(:text) || '%' " +
+            "OR :text <% LOWER(COALESCE(it.name, '') || ' ' || COALESCE(it.description, ''))) " +
+            "ORDER BY ts_rank(it.search_vector, plainto_tsquery('simple', :text)) DESC, " +
+            "word_similarity(:text, LOWER(COALESCE(it.name, '') || ' ' || COALESCE(it.description, ''))) DESC, " +
+            "it.id",
+            nativeQuery = true)
+    List<Item> fullTextSearch(@Param("text") String text, Pageable pageable);
+
+    @Query(value = "SELECT it.* " +
+            "FROM item it " +
+            "WHERE it.available = true " +
+            "AND it.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(it.search_vector, to_tsquery('simple', :query)) DESC, it.id",
+            nativeQuery = true)
+    List<Item> fullTextMatch(@Param("query") String query, Pageable pageable);
+
     List<Item> findAllByOwnerId(Long ownerId);
 
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(Long ownerId, Long id, Pageable pageable);
+
     List<Item> findAllByRequest_Id(Long requestId);
+
+    List<Item> findAllByRequest_IdIn(Collection<Long> requestIds);
+
+    List<Item> findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Item> findAllByUpdatedGreaterThanEqualAndIdGreaterThanOrderByIdAsc(LocalDateTime updated, Long id,
+                                                                             Pageable pageable);
+
+    @Query("SELECT it.id FROM Item it WHERE it.available = true AND it.id > :id ORDER BY it.id")
+    List<Long> findAvailableIds(@Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Подбор доступных вещей по основам слов: вещь подходит, если хотя бы одна основа входит в name
+ * или description. Вещи упорядочены по числу совпавших основ, затем по id.
+ */
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Item> findMatching(List<String> stems, int limit) {
+        if (stems.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder condition = new StringBuilder();
+        StringBuilder score = new StringBuilder();
+        for (int i = 0; i < stems.size(); i++) {
+            String matches = "LOWER(it.name) LIKE :stem" + i + " OR LOWER(it.description) LIKE :stem" + i;
+            condition.append(i == 0 ? "" : " OR ").append(matches);
+            score.append(i == 0 ? "" : " + ").append("CASE WHEN ").append(matches).append(" THEN 1 ELSE 0 END");
+        }
+        TypedQuery<Item> query = entityManager.createQuery("SELECT it FROM Item it WHERE it.available = true AND ("
+                + condition + ") ORDER BY " + score + " DESC, it.id", Item.class);
+        for (int i = 0; i < stems.size(); i++) {
+            query.setParameter("stem" + i, "%" + stems.get(i) + "%");
+        }
+        return query.setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.model.ItemDayStats;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemStatsRepository {
+
+    private static final String INCREMENT = "UPDATE item_booking_stats SET bookings = bookings + ?, "
+            + "approved = approved + ?, rejected = rejected + ?, booked_minutes = booked_minutes + ?, "
+            + "lead_minutes = lead_minutes + ? WHERE item_id = ? AND stats_date = ?";
+
+    private static final String INSERT = "INSERT INTO item_booking_stats (bookings, approved, rejected, "
+            + "booked_minutes, lead_minutes, item_id, stats_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_BY_ITEM = "SELECT item_id, stats_date, bookings, approved, rejected, "
+            + "booked_minutes, lead_minutes FROM item_booking_stats "
+            + "WHERE item_id = ? AND stats_date BETWEEN ? AND ? ORDER BY stats_date";
+
+    private static final String DELETE_FROM = "DELETE FROM item_booking_stats WHERE stats_date >= ?";
+
+    private static final String RECOUNT_FROM = "INSERT INTO item_booking_stats (item_id, stats_date, bookings, "
+            + "approved, rejected, booked_minutes, lead_minutes) "
+            + "SELECT b.item_id, CAST(b.start_date AS DATE), COUNT(*), "
+            + "SUM(CASE WHEN b.status = 'APPROVED' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN b.status = 'APPROVED' THEN CAST(FLOOR((EXTRACT(EPOCH FROM b.end_date) "
+            + "- EXTRACT(EPOCH FROM b.start_date)) / 60) AS BIGINT) ELSE 0 END), "
+            + "SUM(CASE WHEN b.created IS NULL THEN 0 ELSE CAST(FLOOR((EXTRACT(EPOCH FROM b.start_date) "
+            + "- EXTRACT(EPOCH FROM b.created)) / 60) AS BIGINT) END) "
+            + "FROM booking b "
+            + "WHERE b.start_date >= ? "
+            + "GROUP BY b.item_id, CAST(b.start_date AS DATE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет счетчики к строке дня, возвращает 0, если строки еще нет.
+     */
+    public int increment(ItemDayStats delta) {
+        return jdbcTemplate.update(INCREMENT, args(delta));
+    }
+
+    public void insert(ItemDayStats stats) {
+        jdbcTemplate.update(INSERT, args(stats));
+    }
+
+    public List<ItemDayStats> findByItem(Long itemId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(FIND_BY_ITEM, (rs, rowNum) -> ItemDayStats.builder()
+                .itemId(rs.getLong("item_id"))
+                .date(rs.getDate("stats_date").toLocalDate())
+                .bookings(rs.getInt("bookings"))
+                .approved(rs.getInt("approved"))
+                .rejected(rs.getInt("rejected"))
+                .bookedMinutes(rs.getLong("booked_minutes"))
+                .leadMinutes(rs.getLong("lead_minutes"))
+                .build(), itemId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Пересчитывает строки с даты from по таблице booking, возвращает число записанных строк.
+     * Бронирования, начинающиеся с from, еще не перенесены в архив.
+     */
+    public int recount(LocalDate from) {
+        jdbcTemplate.update(DELETE_FROM, Date.valueOf(from));
+        return jdbcTemplate.update(RECOUNT_FROM, Timestamp.valueOf(from.atStartOfDay()));
+    }
+
+    private static Object[] args(ItemDayStats stats) {
+        return new Object[]{stats.getBookings(), stats.getApproved(), stats.getRejected(), stats.getBookedMinutes(),
+                stats.getLeadMinutes(), stats.getItemId(), Date.valueOf(stats.getDate())};
+    }
+}
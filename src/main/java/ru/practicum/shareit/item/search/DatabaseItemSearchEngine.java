@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabaseItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, Pageable pageable) {
+        return itemRepository.search(text, pageable).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDto> match(String text, int limit) {
+        return itemRepository.findMatching(ItemSearchTerms.matchStems(text), limit).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+}
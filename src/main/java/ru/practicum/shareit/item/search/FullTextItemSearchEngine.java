@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск PostgreSQL: колонка item.search_vector и триграммные индексы
+ * создаются в schema-postgresql.sql.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "fulltext")
+@RequiredArgsConstructor
+public class FullTextItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, Pageable pageable) {
+        return itemRepository.fullTextSearch(text, pageable).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Основы слов объединяются через ИЛИ как префиксы: 'дрел:* | стен:*', ранжирование - ts_rank.
+     */
+    @Override
+    public List<ItemDto> match(String text, int limit) {
+        List<String> stems = ItemSearchTerms.matchStems(text);
+        if (stems.isEmpty()) {
+            return List.of();
+        }
+        String query = stems.stream()
+                .map(stem -> stem + ":*")
+                .collect(Collectors.joining(" | "));
+        return itemRepository.fullTextMatch(query, PageRequest.of(0, limit)).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+public interface ItemSearchEngine {
+
+    List<ItemDto> search(String text, Pageable pageable);
+
+    /**
+     * Вещи, подходящие под произвольный текст (например, описание запроса), лучшие первыми.
+     * Текст не обязан входить в вещь целиком: подходят вещи хотя бы с одной основой слова
+     * из ItemSearchTerms.matchStems.
+     */
+    List<ItemDto> match(String text, int limit);
+
+    default void index(Item item) {
+    }
+
+    default void remove(Long itemId) {
+    }
+
+    default void removeOwner(Long ownerId) {
+    }
+}
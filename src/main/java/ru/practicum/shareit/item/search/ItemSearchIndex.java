@@ -0,0 +1,406 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс доступных вещей по словам из name и description.
+ * Рядом со словарем слов хранится словарь суффиксов (суффикс -> слова), поэтому слово запроса
+ * находит все слова вещи, в которые оно входит подстрокой ("рель" находит "Дрель"), как LIKE '%text%'
+ * в ItemRepository.search. Найденные кандидаты дополнительно проверяются тем же условием.
+ * Совпадения в name идут раньше совпадений только в description.
+ * При включенном shareit.search.snapshot.path индекс периодически и при остановке сохраняется
+ * в ItemSearchIndexSnapshot, а при старте загружается из снимка и догоняет изменения после него.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "index", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ItemSearchIndex implements ItemSearchEngine {
+
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+    private static final Duration SNAPSHOT_REPLAY_MARGIN = Duration.ofMinutes(5);
+
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndexSnapshot snapshot;
+
+    private final ConcurrentNavigableMap<String, Set<Long>> terms = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Set<String>> suffixes = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedItem> items = new ConcurrentHashMap<>();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!restore()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long lastId = 0L;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(this::put);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        finishLoading();
+        log.info("Индекс поиска вещей построен за {} мс: {} вещей, {} слов.",
+                System.currentTimeMillis() - started, items.size(), terms.size());
+    }
+
+    public boolean restore() {
+        if (!snapshot.isEnabled()) {
+            return false;
+        }
+        long started = System.currentTimeMillis();
+        Optional<LocalDateTime> highWaterMark;
+        try {
+            highWaterMark = snapshot.read(indexed -> items.put(indexed.getItem().getId(), indexed),
+                    (term, itemIds) -> {
+                        Set<Long> postings = new ConcurrentSkipListSet<>();
+                        for (long itemId : itemIds) {
+                            postings.add(itemId);
+                        }
+                        terms.put(term, postings);
+                        addSuffixes(term);
+                    });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось загрузить снимок индекса поиска, индекс будет построен заново.", e);
+            highWaterMark = Optional.empty();
+        }
+        if (highWaterMark.isEmpty()) {
+            items.clear();
+            terms.clear();
+            suffixes.clear();
+            return false;
+        }
+        int replayed = replayChangedSince(highWaterMark.get());
+        int reconciled = reconcile();
+        finishLoading();
+        log.info("Индекс поиска вещей восстановлен из снимка за {} мс: {} вещей, {} слов, догнано {} изменений, "
+                        + "исправлено {} вещей.", System.currentTimeMillis() - started, items.size(), terms.size(),
+                replayed, reconciled);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.search.snapshot.interval-ms:600000}",
+            initialDelayString = "${shareit.search.snapshot.interval-ms:600000}")
+    public void writeSnapshot() {
+        if (!ready || !snapshot.isEnabled()) {
+            return;
+        }
+        LocalDateTime highWaterMark = LocalDateTime.now().minus(SNAPSHOT_REPLAY_MARGIN);
+        try {
+            synchronized (this) {
+                snapshot.write(highWaterMark, items.values(), terms);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать снимок индекса поиска.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void index(Item item) {
+        afterCommit(() -> {
+            track(item.getId());
+            apply(item);
+        });
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        afterCommit(() -> {
+            track(itemId);
+            delete(itemId);
+        });
+    }
+
+    @Override
+    public void removeOwner(Long ownerId) {
+        afterCommit(() -> items.values().stream()
+                .filter(indexed -> ownerId.equals(indexed.getOwnerId()))
+                .map(indexed -> indexed.getItem().getId())
+                .collect(Collectors.toList())
+                .forEach(itemId -> {
+                    track(itemId);
+                    delete(itemId);
+                }));
+    }
+
+    @Override
+    public List<ItemDto> search(String text, Pageable pageable) {
+        if (!ready) {
+            return itemRepository.search(text, pageable).stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+        if (pageable.isUnpaged()) {
+            return search(text);
+        }
+        return search(text).stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    public List<ItemDto> search(String text) {
+        String query = text.toLowerCase(Locale.ROOT);
+        List<String> queryTokens = ItemSearchTerms.tokenize(query);
+        Collection<Long> candidates = queryTokens.isEmpty() ? items.keySet() : candidates(queryTokens);
+        return candidates.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .filter(indexed -> indexed.matches(query))
+                .sorted(Comparator.comparing((IndexedItem indexed) -> !contains(indexed.getItem().getName(), query))
+                        .thenComparing(indexed -> indexed.getItem().getId()))
+                .map(IndexedItem::getItem)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Подбор вещей по описанию запроса: основа каждого слова из ItemSearchTerms.matchStems сопоставляется
+     * с префиксами слов вещи. Вещи упорядочены по числу совпавших основ.
+     */
+    @Override
+    public List<ItemDto> match(String text, int limit) {
+        if (!ready) {
+            return itemRepository.findMatching(ItemSearchTerms.matchStems(text), limit).stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String stem : ItemSearchTerms.matchStems(text)) {
+            Set<Long> matches = new HashSet<>();
+            terms.subMap(stem, true, stem + Character.MAX_VALUE, true).values().forEach(matches::addAll);
+            matches.forEach(itemId -> scores.merge(itemId, 1, Integer::sum));
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> items.get(entry.getKey()))
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .map(IndexedItem::getItem)
+                .collect(Collectors.toList());
+    }
+
+    private int replayChangedSince(LocalDateTime highWaterMark) {
+        int replayed = 0;
+        long lastId = 0L;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByUpdatedGreaterThanEqualAndIdGreaterThanOrderByIdAsc(highWaterMark,
+                    lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(this::apply);
+            replayed += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return replayed;
+    }
+
+    private int reconcile() {
+        long[] indexedIds = items.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int position = 0;
+        int deleted = 0;
+        List<Long> missing = new ArrayList<>();
+        long lastId = 0L;
+        List<Long> batch;
+        do {
+            batch = itemRepository.findAvailableIds(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (Long itemId : batch) {
+                while (position < indexedIds.length && indexedIds[position] < itemId) {
+                    delete(indexedIds[position++]);
+                    deleted++;
+                }
+                if (position < indexedIds.length && indexedIds[position] == itemId) {
+                    position++;
+                } else {
+                    missing.add(itemId);
+                }
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        while (position < indexedIds.length) {
+            delete(indexedIds[position++]);
+            deleted++;
+        }
+        itemRepository.findAllById(missing).forEach(this::apply);
+        return deleted + missing.size();
+    }
+
+    private void finishLoading() {
+        ready = true;
+        for (Long itemId : changedDuringRebuild) {
+            itemRepository.findById(itemId).ifPresentOrElse(this::apply, () -> delete(itemId));
+        }
+        changedDuringRebuild.clear();
+    }
+
+    private Set<Long> candidates(List<String> queryTokens) {
+        Set<Long> result = null;
+        for (String token : queryTokens) {
+            Set<Long> matches = new HashSet<>();
+            suffixes.subMap(token, true, token + Character.MAX_VALUE, true).values().stream()
+                    .flatMap(Set::stream)
+                    .distinct()
+                    .map(terms::get)
+                    .filter(Objects::nonNull)
+                    .forEach(matches::addAll);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void apply(Item item) {
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            put(item);
+        } else {
+            delete(item.getId());
+        }
+    }
+
+    private synchronized void put(Item item) {
+        IndexedItem indexed = new IndexedItem(ItemMapper.toItemDto(item),
+                item.getOwner() != null ? item.getOwner().getId() : null);
+        IndexedItem previous = items.put(item.getId(), indexed);
+        if (previous != null) {
+            unlink(item.getId(), previous.tokens());
+        }
+        link(item.getId(), indexed.tokens());
+    }
+
+    private synchronized void delete(Long itemId) {
+        IndexedItem previous = items.remove(itemId);
+        if (previous != null) {
+            unlink(itemId, previous.tokens());
+        }
+    }
+
+    private void link(Long itemId, Set<String> tokens) {
+        tokens.forEach(token -> {
+            if (!terms.containsKey(token)) {
+                terms.put(token, new ConcurrentSkipListSet<>());
+                addSuffixes(token);
+            }
+            terms.get(token).add(itemId);
+        });
+    }
+
+    private void unlink(Long itemId, Set<String> tokens) {
+        tokens.forEach(token -> {
+            Set<Long> ids = terms.computeIfPresent(token, (key, postings) -> {
+                postings.remove(itemId);
+                return postings.isEmpty() ? null : postings;
+            });
+            if (ids == null) {
+                removeSuffixes(token);
+            }
+        });
+    }
+
+    private void addSuffixes(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            suffixes.computeIfAbsent(term.substring(i), key -> ConcurrentHashMap.newKeySet()).add(term);
+        }
+    }
+
+    private void removeSuffixes(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            suffixes.computeIfPresent(term.substring(i), (key, words) -> {
+                words.remove(term);
+                return words.isEmpty() ? null : words;
+            });
+        }
+    }
+
+    private void track(Long itemId) {
+        if (!ready) {
+            changedDuringRebuild.add(itemId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static boolean contains(String value, String query) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class IndexedItem {
+        private final ItemDto item;
+        private final Long ownerId;
+
+        private Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(ItemSearchTerms.tokenize(item.getName()));
+            tokens.addAll(ItemSearchTerms.tokenize(item.getDescription()));
+            return tokens;
+        }
+
+        private boolean matches(String query) {
+            return contains(item.getName(), query) || contains(item.getDescription(), query);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Снимок ItemSearchIndex в memory-mapped файле: вещи, словарь слов со списками id вещей
+ * и high-water mark - момент, начиная с которого изменения вещей нужно догнать из базы.
+ * Файл пишется во временный и атомарно переименовывается, поэтому читатель видит
+ * либо прошлый, либо новый снимок целиком.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "index", matchIfMissing = true)
+@Slf4j
+public class ItemSearchIndexSnapshot {
+
+    private static final int MAGIC = 0x53484958;
+    private static final int VERSION = 1;
+    private static final int WRITE_WINDOW = 64 * 1024 * 1024;
+    private static final long NULL_ID = Long.MIN_VALUE;
+
+    private final Path path;
+
+    public ItemSearchIndexSnapshot(@Value("${shareit.search.snapshot.path:}") String path) {
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    public void write(LocalDateTime highWaterMark, Collection<ItemSearchIndex.IndexedItem> items,
+                      Map<String, ? extends Collection<Long>> terms) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (MappedWriter writer = new MappedWriter(temp)) {
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putLong(highWaterMark.toInstant(ZoneOffset.UTC).toEpochMilli());
+            writer.putInt(items.size());
+            writer.putInt(terms.size());
+            for (ItemSearchIndex.IndexedItem indexed : items) {
+                ItemDto item = indexed.getItem();
+                writer.putLong(item.getId());
+                writer.putLong(indexed.getOwnerId() != null ? indexed.getOwnerId() : NULL_ID);
+                writer.putLong(item.getRequestId() != null ? item.getRequestId() : NULL_ID);
+                writer.putString(item.getName());
+                writer.putString(item.getDescription());
+            }
+            for (Map.Entry<String, ? extends Collection<Long>> term : terms.entrySet()) {
+                writer.putString(term.getKey());
+                writer.putInt(term.getValue().size());
+                for (Long itemId : term.getValue()) {
+                    writer.putLong(itemId);
+                }
+            }
+            writer.putInt(MAGIC);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Снимок индекса поиска записан в {}: {} вещей, {} слов.", path, items.size(), terms.size());
+    }
+
+    public Optional<LocalDateTime> read(Consumer<ItemSearchIndex.IndexedItem> items,
+                                        BiConsumer<String, long[]> terms) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                log.warn("Снимок индекса поиска {} больше 2 ГБ и не будет загружен.", path);
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Файл {} не является снимком индекса поиска этой версии.", path);
+                return Optional.empty();
+            }
+            LocalDateTime highWaterMark = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()),
+                    ZoneOffset.UTC);
+            int itemCount = buffer.getInt();
+            int termCount = buffer.getInt();
+            for (int i = 0; i < itemCount; i++) {
+                Long id = buffer.getLong();
+                Long ownerId = nullable(buffer.getLong());
+                Long requestId = nullable(buffer.getLong());
+                ItemDto item = ItemDto.builder()
+                        .id(id)
+                        .name(getString(buffer))
+                        .description(getString(buffer))
+                        .available(true)
+                        .requestId(requestId)
+                        .build();
+                items.accept(new ItemSearchIndex.IndexedItem(item, ownerId));
+            }
+            for (int i = 0; i < termCount; i++) {
+                String term = getString(buffer);
+                long[] itemIds = new long[buffer.getInt()];
+                buffer.asLongBuffer().get(itemIds);
+                buffer.position(buffer.position() + itemIds.length * Long.BYTES);
+                terms.accept(term, itemIds);
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Снимок индекса поиска " + path + " поврежден.");
+            }
+            return Optional.of(highWaterMark);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Снимок индекса поиска " + path + " обрезан.", e);
+        }
+    }
+
+    private static Long nullable(long id) {
+        return id == NULL_ID ? null : id;
+    }
+
+    private static String getString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class MappedWriter implements Closeable {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long position;
+
+        private MappedWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, WRITE_WINDOW);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                buffer.force();
+                position += buffer.position();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(WRITE_WINDOW, bytes));
+            }
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        private void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                buffer.force();
+                channel.truncate(position + buffer.position());
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
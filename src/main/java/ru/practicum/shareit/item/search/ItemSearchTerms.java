@@ -0,0 +1,51 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Разбор текста на слова для поиска вещей и подбора вещей к запросам. Один и тот же разбор используют
+ * все реализации ItemSearchEngine, поэтому подбор дает близкие результаты при любом shareit.search.engine.
+ */
+final class ItemSearchTerms {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_MATCH_TOKEN = 4;
+    private static final int MATCH_STEM_CUT = 2;
+    private static final Set<String> STOP_WORDS = Set.of("нужна", "нужен", "нужно", "нужны", "надо", "хочу",
+            "ищу", "ищем", "может", "можно", "есть", "будет", "чтобы", "очень", "пожалуйста", "срочно",
+            "желательно", "только", "какой", "какая", "какое", "нибудь", "взять", "одолжить", "аренду",
+            "арендовать", "несколько", "дней", "день", "неделю", "выходные");
+
+    private ItemSearchTerms() {
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Основы слов для подбора вещей по произвольному тексту. Слова короче MIN_MATCH_TOKEN букв (предлоги,
+     * союзы) и служебные слова запросов ("нужна", "пожалуйста") пропускаются, у остальных отрезается
+     * до MATCH_STEM_CUT последних букв (грубое отсечение окончания: "дрелью" находит "дрель").
+     */
+    static List<String> matchStems(String text) {
+        return tokenize(text).stream()
+                .filter(token -> token.length() >= MIN_MATCH_TOKEN)
+                .filter(token -> !STOP_WORDS.contains(token))
+                .map(token -> token.substring(0, Math.max(MIN_MATCH_TOKEN, token.length() - MATCH_STEM_CUT)))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
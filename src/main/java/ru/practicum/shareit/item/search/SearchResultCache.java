@@ -0,0 +1,146 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU кэш страниц поиска вещей с TTL. Ключ - текст запроса в нижнем регистре и страница,
+ * весь результат без страницы (Pageable.unpaged()) кэшируется под своим ключом. Результаты длиннее
+ * max-items не кэшируются, чтобы редкие широкие запросы не занимали память.
+ * Любое изменение вещей увеличивает поколение кэша, записи прошлых поколений считаются устаревшими.
+ * Счетчики попаданий и промахов доступны в метриках shareit.search.cache.*.
+ */
+@Component
+public class SearchResultCache implements MeterBinder {
+
+    private static final int UNPAGED = -1;
+
+    private final int maxEntries;
+    private final int maxItems;
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SearchResultCache(@Value("${shareit.search.cache.max-entries:1000}") int maxEntries,
+                             @Value("${shareit.search.cache.max-items:1000}") int maxItems,
+                             @Value("${shareit.search.cache.ttl:60s}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.maxItems = maxItems;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    public List<ItemDto> get(String text, Pageable pageable, Supplier<List<ItemDto>> loader) {
+        Key key = pageable.isUnpaged()
+                ? new Key(text.toLowerCase(Locale.ROOT), 0, UNPAGED)
+                : new Key(text.toLowerCase(Locale.ROOT), pageable.getOffset(), pageable.getPageSize());
+        long currentGeneration = generation.get();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.generation == currentGeneration
+                    && System.currentTimeMillis() < entry.expiresAt) {
+                hits.increment();
+                return entry.items;
+            }
+        }
+        misses.increment();
+        List<ItemDto> items = List.copyOf(loader.get());
+        if (maxEntries > 0 && items.size() <= maxItems) {
+            synchronized (entries) {
+                entries.put(key, new Entry(items, currentGeneration, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return items;
+    }
+
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nextGeneration();
+                }
+            });
+        } else {
+            nextGeneration();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.search.cache.requests", this, SearchResultCache::getHits)
+                .tag("result", "hit")
+                .description("Запросы поиска, отданные из кэша")
+                .register(registry);
+        FunctionCounter.builder("shareit.search.cache.requests", this, SearchResultCache::getMisses)
+                .tag("result", "miss")
+                .description("Запросы поиска, ушедшие в поисковый движок")
+                .register(registry);
+        Gauge.builder("shareit.search.cache.size", this, SearchResultCache::size)
+                .description("Число страниц поиска в кэше")
+                .register(registry);
+    }
+
+    private void nextGeneration() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final String text;
+        private final long offset;
+        private final int size;
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final List<ItemDto> items;
+        private final long generation;
+        private final long expiresAt;
+    }
+}
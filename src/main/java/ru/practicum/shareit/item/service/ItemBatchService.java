@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface ItemBatchService {
+
+    List<ItemBatchResultDto> addItems(Long userId, InputStream body, boolean ndjson);
+}
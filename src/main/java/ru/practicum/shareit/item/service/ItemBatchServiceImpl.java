@@ -0,0 +1,205 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemBatchRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.item.validator.ItemValidator;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовое добавление вещей. Тело читается потоково (JSON массив или NDJSON) и обрабатывается
+ * пачками по CHUNK_SIZE строк: запросы пачки загружаются одним запросом, вещи вставляются JDBC batch
+ * в отдельной транзакции. Если пачка не вставилась целиком, ее строки вставляются по одной,
+ * чтобы ошибка досталась только виноватой строке.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ItemBatchServiceImpl implements ItemBatchService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final ItemBatchRepository itemBatchRepository;
+    private final UserCache userCache;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine searchEngine;
+    private final SearchResultCache searchResultCache;
+    private final RequestFeed requestFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public List<ItemBatchResultDto> addItems(Long userId, InputStream body, boolean ndjson) {
+        User owner = userCache.find(userId)
+                .orElseThrow(() -> new ObjectNotFoundException("Пользователь не найден."));
+        Batch batch = new Batch(owner);
+        try {
+            if (ndjson) {
+                readLines(body, batch);
+            } else {
+                readArray(body, batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.flush();
+        log.info("Пакетное добавление вещей для User с ID {}: {} строк, {} ошибок.", userId,
+                batch.results.size(), batch.results.stream().filter(result -> result.getError() != null).count());
+        batch.results.sort(Comparator.comparing(ItemBatchResultDto::getIndex));
+        return batch.results;
+    }
+
+    private void readLines(InputStream body, Batch batch) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ItemDto.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int index = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(index, reader.readValue(line));
+            } catch (JsonParseException | JsonMappingException e) {
+                batch.fail(index, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+            index++;
+        }
+    }
+
+    private void readArray(InputStream body, Batch batch) throws IOException {
+        int index = 0;
+        try (MappingIterator<ItemDto> rows = objectMapper.readerFor(ItemDto.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                try {
+                    batch.add(index, rows.nextValue());
+                } catch (JsonMappingException e) {
+                    batch.fail(index, "Некорректный JSON: " + e.getOriginalMessage());
+                }
+                index++;
+            }
+        } catch (JsonParseException e) {
+            batch.fail(index, "Некорректный JSON, чтение прервано: " + e.getOriginalMessage());
+        }
+    }
+
+    private class Batch {
+        private final User owner;
+        private final Map<Integer, ItemDto> rows = new LinkedHashMap<>();
+        private final List<ItemBatchResultDto> results = new ArrayList<>();
+
+        private Batch(User owner) {
+            this.owner = owner;
+        }
+
+        private void add(int index, ItemDto itemDto) {
+            if (itemDto == null || ItemValidator.isItemInvalid(itemDto)) {
+                fail(index, "Недопустимое тело элемента.");
+                return;
+            }
+            rows.put(index, itemDto);
+            if (rows.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void fail(int index, String error) {
+            results.add(ItemBatchResultDto.builder().index(index).error(error).build());
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<Long, ItemRequest> requests = findRequests();
+            Map<Integer, Item> items = new LinkedHashMap<>();
+            rows.forEach((index, itemDto) -> {
+                if (itemDto.getRequestId() != null && !requests.containsKey(itemDto.getRequestId())) {
+                    fail(index, "Запрос не найден.");
+                    return;
+                }
+                Item item = ItemMapper.toItem(itemDto);
+                item.setId(null);
+                item.setOwner(owner);
+                item.setRequest(itemDto.getRequestId() != null ? requests.get(itemDto.getRequestId()) : null);
+                items.put(index, item);
+            });
+            rows.clear();
+            if (items.isEmpty()) {
+                return;
+            }
+            try {
+                save(new ArrayList<>(items.values()));
+                items.forEach(this::succeed);
+            } catch (DataAccessException e) {
+                log.info("Пачка из {} вещей не сохранена, сохраняем по одной: {}", items.size(), e.getMessage());
+                items.forEach((index, item) -> {
+                    try {
+                        save(List.of(item));
+                        succeed(index, item);
+                    } catch (DataAccessException rowException) {
+                        fail(index, "Не удалось сохранить вещь.");
+                    }
+                });
+            }
+        }
+
+        private Map<Long, ItemRequest> findRequests() {
+            Set<Long> requestIds = rows.values().stream()
+                    .map(ItemDto::getRequestId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            if (requestIds.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            return itemRequestRepository.findAllById(requestIds).stream()
+                    .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        }
+
+        private void save(List<Item> items) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Item item : itemBatchRepository.saveAll(items)) {
+                    searchEngine.index(item);
+                    if (item.getRequest() != null) {
+                        requestFeed.putItem(RequestMapper.toRequestItemDto(item));
+                    }
+                }
+                searchResultCache.invalidate();
+            });
+        }
+
+        private void succeed(int index, Item item) {
+            results.add(ItemBatchResultDto.builder().index(index).id(item.getId()).build());
+        }
+    }
+}
@@ -3,16 +3,19 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ItemService {
 
-    List<ItemInfoDto> getItems(Long userId);
+    KeysetPage<ItemInfoDto> getItems(Long userId, String after, Integer limit);
 
     ItemInfoDto getItem(Long userId, Long itemId);
 
-    List<ItemDto> searchItems(String text);
+    List<ItemDto> searchItems(String text, Integer from, Integer size);
 
     ItemDto addItem(Long userId, ItemDto itemDto);
 
@@ -21,4 +24,6 @@ public interface ItemService {
     void deleteItem(Long itemId);
 
     CommentDto addComment(Long userId, Long itemId, CommentDto commentDto);
+
+    ItemStatsDto getItemStats(Long userId, Long itemId, LocalDate from, LocalDate to);
 }
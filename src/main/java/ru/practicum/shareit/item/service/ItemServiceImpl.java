@@ -2,31 +2,51 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingItemView;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
-import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDayStatsDto;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemDayStats;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.item.validator.ItemValidator;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 
 import javax.transaction.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,19 +54,55 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemServiceImpl implements ItemService {
 
+    static final int DEFAULT_STATS_DAYS = 30;
+    static final int MAX_STATS_DAYS = 366;
+    static final int DEFAULT_ITEMS_LIMIT = 10;
+    static final int DEFAULT_SEARCH_SIZE = 10;
+
     private final ItemRepository repository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine searchEngine;
+    private final ItemResponseCache itemResponseCache;
+    private final SearchResultCache searchResultCache;
+    private final ItemStatsRepository itemStatsRepository;
+    private final RequestFeed requestFeed;
 
     @Override
-    public List<ItemInfoDto> getItems(Long userId) {
-        return repository.findAllByOwnerId(userId)
+    public KeysetPage<ItemInfoDto> getItems(Long userId, String after, Integer limit) {
+        if (limit != null && limit <= 0) {
+            log.info("Аргументы не могут быть отрицательными.");
+            throw new InvalidEntityException("Аргументы не могут быть отрицательными.");
+        }
+        if (after == null && limit == null) {
+            // без after и limit отдаются все вещи владельца
+            List<ItemInfoDto> items = repository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, 0L,
+                            Pageable.unpaged())
+                    .stream()
+                    .map(ItemMapper::toItemInfo)
+                    .collect(Collectors.toList());
+            setBookingsToItems(items);
+            return new KeysetPage<>(items, null);
+        }
+        if (limit == null) {
+            limit = DEFAULT_ITEMS_LIMIT;
+        }
+        Long afterId = after == null ? 0L : KeysetCursor.decodeId(after);
+        List<ItemInfoDto> items = repository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, afterId,
+                        PageRequest.of(0, limit + 1))
                 .stream()
                 .map(ItemMapper::toItemInfo)
-                .peek(this::setBookingToItem)
                 .collect(Collectors.toList());
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = KeysetCursor.encode(items.get(limit - 1).getId());
+        }
+        setBookingsToItems(items);
+        return new KeysetPage<>(items, nextCursor);
     }
 
     @Override
@@ -57,7 +113,7 @@ public class ItemServiceImpl implements ItemService {
         ItemInfoDto itemInfoDto = ItemMapper.toItemInfo(item);
 
         if (item.getOwner().getId().equals(userId)) {
-            setBookingToItem(itemInfoDto);
+            setBookingsToItems(List.of(itemInfoDto));
         }
 
         List<CommentDto> comments = commentRepository.findByItem_Id(itemId)
@@ -71,33 +127,42 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemDto> searchItems(String text) {
+    public List<ItemDto> searchItems(String text, Integer from, Integer size) {
+        if ((from != null && from < 0) || (size != null && size <= 0)) {
+            log.info("Аргументы не могут быть отрицательными.");
+            throw new InvalidEntityException("Аргументы не могут быть отрицательными.");
+        }
         if (text.isEmpty()) {
             return Collections.emptyList();
-        } else {
-            return repository.search(text).stream()
-                    .map(ItemMapper::toItemDto)
-                    .collect(Collectors.toList());
         }
+        Pageable pageable = from == null && size == null
+                ? Pageable.unpaged()
+                : OffsetPageRequest.of(from != null ? from : 0, size != null ? size : DEFAULT_SEARCH_SIZE);
+        return searchResultCache.get(text, pageable, () -> searchEngine.search(text, pageable));
     }
 
     @Transactional
     @Override
     public ItemDto addItem(Long userId, ItemDto itemDto) {
-        if (itemCheck(itemDto)) {
+        if (ItemValidator.isItemInvalid(itemDto)) {
             log.info("Недопустимое тело элемента.");
             throw new InvalidEntityException("Недопустимое тело элемента.");
         }
         Item newItem = ItemMapper.toItem(itemDto);
-        newItem.setOwner(userRepository.findById(userId)
+        newItem.setOwner(userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь не найден.")));
-        if (itemDto.getRequestId() == null) {
-            return ItemMapper.toItemDto(repository.save(newItem));
+        if (itemDto.getRequestId() != null) {
+            ItemRequest itemRequest = itemRequestRepository.findById(itemDto.getRequestId())
+                    .orElseThrow(() -> new ObjectNotFoundException("Запрос не найден."));
+            newItem.setRequest(itemRequest);
+        }
+        Item savedItem = repository.save(newItem);
+        searchEngine.index(savedItem);
+        searchResultCache.invalidate();
+        if (savedItem.getRequest() != null) {
+            requestFeed.putItem(RequestMapper.toRequestItemDto(savedItem));
         }
-        ItemRequest itemRequest = itemRequestRepository.findById(itemDto.getRequestId())
-                .orElseThrow(() -> new ObjectNotFoundException("Запрос не найден."));
-        newItem.setRequest(itemRequest);
-        return ItemMapper.toItemDto(repository.save(newItem));
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Transactional
@@ -111,6 +176,18 @@ public class ItemServiceImpl implements ItemService {
         }
         updatedItem = itemUpdate(updatedItem, itemDto);
         repository.save(updatedItem);
+        Long ownerId = updatedItem.getOwner().getId();
+        if (!Objects.equals(ownerId, userId)) {
+            int moved = bookingRepository.updateOwnerByItemId(itemId, ownerId)
+                    + bookingArchiveRepository.updateOwnerByItemId(itemId, ownerId);
+            log.info("Вещь с ID {} передана пользователю с ID {}, бронирований перенесено: {}.", itemId, ownerId, moved);
+        }
+        searchEngine.index(updatedItem);
+        searchResultCache.invalidate();
+        itemResponseCache.evict(itemId);
+        if (updatedItem.getRequest() != null) {
+            requestFeed.putItem(RequestMapper.toRequestItemDto(updatedItem));
+        }
         return ItemMapper.toItemDto(updatedItem);
     }
 
@@ -122,6 +199,53 @@ public class ItemServiceImpl implements ItemService {
             throw new ObjectNotFoundException("Такой вещи не существует.");
         }
         repository.deleteById(itemId);
+        searchEngine.remove(itemId);
+        searchResultCache.invalidate();
+        itemResponseCache.evict(itemId);
+        requestFeed.removeItem(itemId);
+    }
+
+    @Override
+    public ItemStatsDto getItemStats(Long userId, Long itemId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_STATS_DAYS - 1);
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_STATS_DAYS) {
+            log.info("Недопустимый период статистики: {} - {}.", start, end);
+            throw new InvalidEntityException("Период статистики должен быть от 1 до " + MAX_STATS_DAYS + " дней.");
+        }
+        Item item = repository.findById(itemId)
+                .orElseThrow(() -> new ObjectNotFoundException("Такой вещи не существует."));
+        if (!Objects.equals(item.getOwner().getId(), userId)) {
+            log.info("Товар не принадлежит этому пользователю.");
+            throw new ObjectNotFoundException("Товар не принадлежит этому пользователю.");
+        }
+
+        List<ItemDayStats> days = itemStatsRepository.findByItem(itemId, start, end);
+        int bookings = days.stream().mapToInt(ItemDayStats::getBookings).sum();
+        int approved = days.stream().mapToInt(ItemDayStats::getApproved).sum();
+        int rejected = days.stream().mapToInt(ItemDayStats::getRejected).sum();
+        long bookedMinutes = days.stream().mapToLong(ItemDayStats::getBookedMinutes).sum();
+        long leadMinutes = days.stream().mapToLong(ItemDayStats::getLeadMinutes).sum();
+        return ItemStatsDto.builder()
+                .itemId(itemId)
+                .from(start)
+                .to(end)
+                .bookings(bookings)
+                .approved(approved)
+                .rejected(rejected)
+                .approvalRate(approved + rejected > 0 ? (double) approved / (approved + rejected) : null)
+                .bookedHours(bookedMinutes / 60.0)
+                .averageLeadHours(bookings > 0 ? leadMinutes / 60.0 / bookings : null)
+                .days(days.stream()
+                        .map(day -> ItemDayStatsDto.builder()
+                                .date(day.getDate())
+                                .bookings(day.getBookings())
+                                .approved(day.getApproved())
+                                .rejected(day.getRejected())
+                                .bookedHours(day.getBookedMinutes() / 60.0)
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
     }
 
     @Override
@@ -130,10 +254,12 @@ public class ItemServiceImpl implements ItemService {
         Comment comment = CommentMapper.toComment(commentDto);
         comment.setItem(repository.findById(itemId)
                 .orElseThrow(() -> new ObjectNotFoundException("Такой вещи не существует.")));
-        comment.setUser(userRepository.findById(userId)
+        comment.setUser(userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь не найден.")));
         comment.setCreated(LocalDateTime.now());
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto savedComment = CommentMapper.toCommentDto(commentRepository.save(comment));
+        itemResponseCache.evict(itemId);
+        return savedComment;
     }
 
     private void validateComment(Long userId, Long itemId, CommentDto commentDto) {
@@ -153,13 +279,17 @@ public class ItemServiceImpl implements ItemService {
 
     private Boolean isAlreadyBooked(Long userId, Long itemId) {
         List<Booking> bookingList = bookingRepository.findByBooker_IdAndItem_IdOrderByStartAsc(userId, itemId);
+        if (bookingList.stream().anyMatch(booking -> booking.getEnd().isBefore(LocalDateTime.now()))) {
+            return true;
+        }
+        if (bookingArchiveRepository.existsByBooker_IdAndItem_Id(userId, itemId)) {
+            return true;
+        }
         if (bookingList.isEmpty()) {
             log.info("Пользователь не забронировал товар.");
             throw new InvalidEntityException("Пользователь не забронировал товар.");
         }
-        return bookingList.stream()
-                .anyMatch(booking ->
-                        booking.getEnd().isBefore(LocalDateTime.now()));
+        return false;
     }
 
     private Boolean isOwner(Long userId, Long itemId) {
@@ -179,7 +309,7 @@ public class ItemServiceImpl implements ItemService {
             updatedItem.setAvailable(itemDto.getAvailable());
         }
         if (itemDto.getOwner() != null) {
-            updatedItem.setOwner(userRepository.findById(itemDto.getOwner())
+            updatedItem.setOwner(userCache.find(itemDto.getOwner())
                     .orElseThrow(() -> new ObjectNotFoundException("Пользователь не найден.")));
         }
         if (itemDto.getRequestId() != null) {
@@ -189,34 +319,29 @@ public class ItemServiceImpl implements ItemService {
         return updatedItem;
     }
 
-    private void setBookingToItem(ItemInfoDto item) {
-        List<Booking> bookingList = bookingRepository.findAllByItemIdOrderByStartAsc(item.getId());
-        if (!bookingList.isEmpty()) {
-            Booking lastBooking = bookingList.stream()
-                    .filter(booking -> !booking.getStatus().equals(BookingStatus.REJECTED) &&
-                            booking.getStart().isBefore(LocalDateTime.now()))
-                    .reduce((booking, booking2) -> booking2)
-                    .orElse(null);
-            if (lastBooking != null) {
-                item.setLastBooking(BookingMapper.toBookingItem(lastBooking));
+    private void setBookingsToItems(List<ItemInfoDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemInfoDto> itemsById = items.stream()
+                .collect(Collectors.toMap(ItemInfoDto::getId, Function.identity()));
+        for (BookingItemView booking : bookingRepository.findLastAndNextBookings(itemsById.keySet(), now)) {
+            ItemInfoDto item = itemsById.get(booking.getItemId());
+            if (booking.getStartDate().isBefore(now)) {
+                item.setLastBooking(BookingMapper.toBookingItem(booking));
+            } else {
+                item.setNextBooking(BookingMapper.toBookingItem(booking));
             }
-            Booking nextBooking = bookingList.stream()
-                    .filter(booking -> !booking.getStatus().equals(BookingStatus.REJECTED) &&
-                            booking.getStart().isAfter(LocalDateTime.now()))
-                    .findFirst().orElse(null);
-            if (nextBooking != null) {
-                item.setNextBooking(BookingMapper.toBookingItem(nextBooking));
+        }
+        List<Long> withoutLastBooking = items.stream()
+                .filter(item -> item.getLastBooking() == null)
+                .map(ItemInfoDto::getId)
+                .collect(Collectors.toList());
+        if (!withoutLastBooking.isEmpty()) {
+            for (BookingItemView booking : bookingArchiveRepository.findLastBookings(withoutLastBooking)) {
+                itemsById.get(booking.getItemId()).setLastBooking(BookingMapper.toBookingItem(booking));
             }
         }
     }
-
-    private boolean itemCheck(ItemDto item) {
-        return item.getName() == null ||
-                item.getName().isBlank() ||
-                item.getName().isEmpty() ||
-                item.getAvailable() == null ||
-                item.getDescription() == null ||
-                item.getDescription().isEmpty() ||
-                item.getDescription().isBlank();
-    }
 }
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Ночная сверка счетчиков item_booking_stats с таблицей booking. Пересчитываются дни начиная
+ * с reconcile-days дней назад: раньше бронирования уже не создаются и не рассматриваются,
+ * а счетчики будущих дней меняются каждый день. Пересчет - один DELETE и один INSERT ... SELECT
+ * с группировкой в одной транзакции, поэтому эндпоинт статистики не видит наполовину пересчитанные дни.
+ */
+@Component
+@Slf4j
+public class ItemStatsReconcileJob {
+
+    private final ItemStatsRepository itemStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileDays;
+
+    public ItemStatsReconcileJob(ItemStatsRepository itemStatsRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${shareit.items.stats.reconcile-days:30}") int reconcileDays) {
+        this.itemStatsRepository = itemStatsRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reconcileDays = reconcileDays;
+    }
+
+    @Scheduled(cron = "${shareit.items.stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        LocalDate from = LocalDate.now().minusDays(reconcileDays);
+        Integer rows = transactionTemplate.execute(status -> itemStatsRepository.recount(from));
+        log.info("Статистика бронирований вещей пересчитана с {}, строк: {}.", from, rows);
+    }
+}
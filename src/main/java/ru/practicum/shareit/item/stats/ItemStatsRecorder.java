@@ -0,0 +1,102 @@
+package ru.practicum.shareit.item.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.ItemDayStats;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Инкрементально обновляет счетчики item_booking_stats: строка на вещь и день начала бронирования.
+ * Приращение записывается после коммита транзакции бронирования в отдельной короткой транзакции,
+ * поэтому горячая строка счетчика не блокируется на время всей транзакции бронирования, а откаченное
+ * бронирование не попадает в счетчики. Если запись не удалась, расхождение исправит ночная сверка
+ * {@link ItemStatsReconcileJob}.
+ */
+@Component
+@Slf4j
+public class ItemStatsRecorder {
+
+    private final ItemStatsRepository itemStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ItemStatsRecorder(ItemStatsRepository itemStatsRepository, PlatformTransactionManager transactionManager) {
+        this(itemStatsRepository, new TransactionTemplate(transactionManager));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    ItemStatsRecorder(ItemStatsRepository itemStatsRepository, TransactionTemplate transactionTemplate) {
+        this.itemStatsRepository = itemStatsRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void recordCreated(Booking booking) {
+        LocalDateTime created = booking.getCreated() != null ? booking.getCreated() : LocalDateTime.now();
+        afterCommit(delta(booking)
+                .bookings(1)
+                .leadMinutes(Duration.between(created, booking.getStart()).toMinutes())
+                .build());
+    }
+
+    public void recordDecision(Booking booking, BookingStatus status) {
+        if (status == BookingStatus.APPROVED) {
+            afterCommit(delta(booking)
+                    .approved(1)
+                    .bookedMinutes(Duration.between(booking.getStart(), booking.getEnd()).toMinutes())
+                    .build());
+        } else if (status == BookingStatus.REJECTED) {
+            afterCommit(delta(booking)
+                    .rejected(1)
+                    .build());
+        }
+    }
+
+    void apply(ItemDayStats delta) {
+        try {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (itemStatsRepository.increment(delta) == 0) {
+                        itemStatsRepository.insert(delta);
+                    }
+                });
+            } catch (DuplicateKeyException e) {
+                transactionTemplate.executeWithoutResult(status -> itemStatsRepository.increment(delta));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось обновить статистику вещи с ID {} за {}: {}", delta.getItemId(), delta.getDate(),
+                    e.getMessage());
+        }
+    }
+
+    private static ItemDayStats.ItemDayStatsBuilder delta(Booking booking) {
+        return ItemDayStats.builder()
+                .itemId(booking.getItem().getId())
+                .date(booking.getStart().toLocalDate());
+    }
+
+    private void afterCommit(ItemDayStats delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(delta);
+                }
+            });
+        } else {
+            apply(delta);
+        }
+    }
+}
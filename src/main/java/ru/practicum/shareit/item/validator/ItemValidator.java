@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.validator;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+public class ItemValidator {
+
+    public static boolean isItemInvalid(ItemDto item) {
+        return item.getName() == null ||
+                item.getName().isBlank() ||
+                item.getAvailable() == null ||
+                item.getDescription() == null ||
+                item.getDescription().isBlank();
+    }
+}
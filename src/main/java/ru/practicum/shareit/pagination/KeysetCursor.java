@@ -0,0 +1,55 @@
+package ru.practicum.shareit.pagination;
+
+import ru.practicum.shareit.exception.InvalidEntityException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Непрозрачный курсор для keyset пагинации: значения ключа сортировки последней
+ * отданной записи, склеенные через разделитель и закодированные в Base64 (URL-safe).
+ */
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Object... keys) {
+        String raw = Arrays.stream(keys)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int keyCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\" + SEPARATOR, -1);
+            if (keys.length != keyCount) {
+                throw new IllegalArgumentException(raw);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEntityException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public static <T> T decode(String cursor, int keyCount, Function<String[], T> parser) {
+        String[] keys = decode(cursor, keyCount);
+        try {
+            return parser.apply(keys);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidEntityException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public static Long decodeId(String cursor) {
+        return decode(cursor, 1, keys -> Long.valueOf(keys[0]));
+    }
+}
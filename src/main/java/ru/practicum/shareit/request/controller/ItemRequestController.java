@@ -2,7 +2,9 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
@@ -22,10 +24,21 @@ public class ItemRequestController {
     private final ItemRequestService itemRequestService;
 
     @GetMapping
-    public List<ItemRequestDto> getRequests(@RequestHeader(USERID_HEADER) Long userId) {
+    public ResponseEntity<List<ItemRequestDto>> getRequests(
+            @RequestHeader(USERID_HEADER) Long userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(name = "size", required = false) @Positive Integer size) {
         log.info("Получен GET запрос по эндпоинту /requests на получение всех ItemRequest с данными об ответах "
                 + "на них для User с ID {}.", userId);
-        return itemRequestService.getRequests(userId);
+        return itemRequestService.getRequests(userId, after, size).toResponse();
+    }
+
+    @GetMapping("/matches")
+    public List<ItemDto> getMatches(@RequestHeader(USERID_HEADER) Long userId,
+                                    @RequestParam(name = "size", defaultValue = "20") @Positive Integer size) {
+        log.info("Получен GET запрос по эндпоинту /requests/matches на получение вещей User с ID {}, "
+                + "подобранных к чужим запросам.", userId);
+        return itemRequestService.getMatches(userId, size);
     }
 
     @GetMapping("/{requestId}")
@@ -37,14 +50,15 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequest(
+    public ResponseEntity<List<ItemRequestDto>> getAllRequest(
             @RequestHeader(USERID_HEADER) Long userId,
+            @RequestParam(required = false) String after,
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(name = "size", defaultValue = "10") @Positive Integer size) {
 
         log.info("Получен GET запрос по эндпоинту /requests/all на получение всех ItemRequest для User с ID {}.",
                 userId);
-        return itemRequestService.getAllRequest(userId, from, size);
+        return itemRequestService.getAllRequest(userId, after, from, size).toResponse();
     }
 
     @PostMapping
@@ -20,4 +20,5 @@ public class ItemRequestDto {
     private Long requestor;
     private LocalDateTime created;
     private List<ItemDto> items;
+    private List<ItemDto> candidates;
 }
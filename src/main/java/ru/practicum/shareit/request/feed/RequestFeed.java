@@ -0,0 +1,224 @@
+package ru.practicum.shareit.request.feed;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.repository.ItemRequestPageQuery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Общая для всех пользователей лента последних shareit.requests.feed.size запросов с ответами на них,
+ * в порядке (created, id) по убыванию. GET /requests/all отдается из ленты: свои запросы читателя
+ * отфильтровываются при чтении, в базу уходят только страницы, которые выходят за пределы ленты.
+ * <p>
+ * Новые запросы и ответы на них добавляются в ленту после коммита. Изменения, сделанные на других
+ * узлах, лента не видит, поэтому она целиком перечитывается раз в shareit.requests.feed.ttl.
+ */
+@Component
+public class RequestFeed implements MeterBinder {
+
+    private static final Comparator<ItemRequestDto> FEED_ORDER = Comparator.comparing(ItemRequestDto::getCreated)
+            .thenComparing(ItemRequestDto::getId)
+            .reversed();
+
+    private final int maxRequests;
+    private final long ttlMillis;
+
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RequestFeed(@Value("${shareit.requests.feed.size:1000}") int maxRequests,
+                       @Value("${shareit.requests.feed.ttl:60s}") Duration ttl) {
+        this.maxRequests = maxRequests;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Страница чужих запросов из ленты. Пустой результат означает, что страница выходит за пределы
+     * ленты и ее нужно читать из базы. Loader получает размер ленты и возвращает последние запросы.
+     */
+    public Optional<List<ItemRequestDto>> find(ItemRequestPageQuery query,
+                                               IntFunction<List<ItemRequestDto>> loader) {
+        if (maxRequests <= 0) {
+            return Optional.empty();
+        }
+        Snapshot current = current(loader);
+        List<ItemRequestDto> page = new ArrayList<>(query.getLimit());
+        int skip = query.getOffset();
+        for (ItemRequestDto request : current.requests) {
+            if (request.getRequestor().equals(query.getUserId()) || !isAfter(request, query)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            page.add(request);
+            if (page.size() == query.getLimit()) {
+                break;
+            }
+        }
+        if (page.size() < query.getLimit() && !current.complete) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(page);
+    }
+
+    public void add(ItemRequestDto request) {
+        afterCommit(() -> update(requests -> {
+            requests.removeIf(other -> other.getId().equals(request.getId()));
+            requests.add(copy(request, request.getItems()));
+            requests.sort(FEED_ORDER);
+            return requests;
+        }));
+    }
+
+    /**
+     * Добавляет или обновляет ответ на запрос, если запрос есть в ленте.
+     */
+    public void putItem(ItemDto item) {
+        afterCommit(() -> update(requests -> requests.stream()
+                .map(request -> {
+                    List<ItemDto> items = request.getItems().stream()
+                            .filter(other -> !other.getId().equals(item.getId()))
+                            .collect(Collectors.toCollection(ArrayList::new));
+                    if (request.getId().equals(item.getRequestId())) {
+                        items.add(item);
+                        items.sort(Comparator.comparing(ItemDto::getId));
+                    } else if (items.size() == request.getItems().size()) {
+                        return request;
+                    }
+                    return copy(request, items);
+                })
+                .collect(Collectors.toList())));
+    }
+
+    public void removeItem(Long itemId) {
+        putItem(ItemDto.builder().id(itemId).build());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.requests.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.requests.feed.reads", this, RequestFeed::getHits)
+                .tag("result", "hit")
+                .description("Страницы запросов, отданные из ленты")
+                .register(registry);
+        FunctionCounter.builder("shareit.requests.feed.reads", this, RequestFeed::getMisses)
+                .tag("result", "miss")
+                .description("Страницы запросов, прочитанные из базы")
+                .register(registry);
+        Gauge.builder("shareit.requests.feed.size", this, RequestFeed::size)
+                .description("Число запросов в ленте")
+                .register(registry);
+    }
+
+    private Snapshot current(IntFunction<List<ItemRequestDto>> loader) {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAt) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (current == null || System.currentTimeMillis() >= current.expiresAt) {
+                List<ItemRequestDto> loaded = loader.apply(maxRequests + 1);
+                boolean complete = loaded.size() <= maxRequests;
+                current = new Snapshot(List.copyOf(complete ? loaded : loaded.subList(0, maxRequests)), complete,
+                        System.currentTimeMillis() + ttlMillis);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private void update(UnaryOperator<List<ItemRequestDto>> change) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            List<ItemRequestDto> requests = change.apply(new ArrayList<>(current.requests));
+            boolean complete = current.complete;
+            if (requests.size() > maxRequests) {
+                requests = requests.subList(0, maxRequests);
+                complete = false;
+            }
+            snapshot = new Snapshot(List.copyOf(requests), complete, current.expiresAt);
+        }
+    }
+
+    private static boolean isAfter(ItemRequestDto request, ItemRequestPageQuery query) {
+        if (query.getAfterId() == null) {
+            return true;
+        }
+        int created = request.getCreated().compareTo(query.getAfterCreated());
+        return created < 0 || created == 0 && request.getId() < query.getAfterId();
+    }
+
+    private static ItemRequestDto copy(ItemRequestDto request, List<ItemDto> items) {
+        return ItemRequestDto.builder()
+                .id(request.getId())
+                .description(request.getDescription())
+                .requestor(request.getRequestor())
+                .created(request.getCreated())
+                .items(List.copyOf(items))
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Snapshot {
+        private final List<ItemRequestDto> requests;
+        private final boolean complete;
+        private final long expiresAt;
+
+        private Snapshot(List<ItemRequestDto> requests, boolean complete, long expiresAt) {
+            this.requests = requests;
+            this.complete = complete;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.request.match;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Подбирает к новому запросу подходящие вещи из каталога. Подбор выполняется после коммита запроса
+ * в пуле потоков с очередью на shareit.requests.match.queue-capacity задач, поэтому не задерживает
+ * ответ на POST /requests. Найденные доступные вещи чужих владельцев (не больше max-candidates)
+ * сохраняются в request_match: автор запроса видит их в candidates, а владельцы вещей - в
+ * GET /requests/matches. Если очередь заполнена, запрос остается без подбора.
+ */
+@Component
+@Slf4j
+public class ItemRequestMatcher {
+
+    private final ItemSearchEngine searchEngine;
+    private final ItemRepository itemRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final int maxCandidates;
+
+    @Autowired
+    public ItemRequestMatcher(ItemSearchEngine searchEngine,
+                              ItemRepository itemRepository,
+                              RequestMatchRepository requestMatchRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${shareit.requests.match.max-candidates:10}") int maxCandidates,
+                              @Value("${shareit.requests.match.queue-capacity:1000}") int queueCapacity,
+                              @Value("${shareit.requests.match.threads:1}") int threads) {
+        this(searchEngine, itemRepository, requestMatchRepository, transactionTemplate,
+                new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), threadFactory()), maxCandidates);
+    }
+
+    ItemRequestMatcher(ItemSearchEngine searchEngine,
+                       ItemRepository itemRepository,
+                       RequestMatchRepository requestMatchRepository,
+                       TransactionTemplate transactionTemplate,
+                       Executor executor,
+                       int maxCandidates) {
+        this.searchEngine = searchEngine;
+        this.itemRepository = itemRepository;
+        this.requestMatchRepository = requestMatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.maxCandidates = maxCandidates;
+    }
+
+    public void submit(ItemRequest itemRequest) {
+        Long requestId = itemRequest.getId();
+        Long requestorId = itemRequest.getRequestor().getId();
+        String description = itemRequest.getDescription();
+        Runnable task = () -> {
+            try {
+                executor.execute(() -> match(requestId, requestorId, description));
+            } catch (RejectedExecutionException e) {
+                log.info("Очередь подбора вещей заполнена, запрос с ID {} остался без подбора.", requestId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Подбирает вещи к запросу, возвращает число сохраненных кандидатов.
+     */
+    int match(Long requestId, Long requestorId, String description) {
+        try {
+            List<Long> found = searchEngine.match(description, maxCandidates * 2).stream()
+                    .map(ItemDto::getId)
+                    .collect(Collectors.toList());
+            if (found.isEmpty()) {
+                return 0;
+            }
+            Integer saved = transactionTemplate.execute(status -> {
+                List<Item> candidates = itemRepository.findAllById(found).stream()
+                        .filter(item -> Boolean.TRUE.equals(item.getAvailable()))
+                        .filter(item -> !item.getOwner().getId().equals(requestorId))
+                        .sorted((first, second) -> Integer.compare(found.indexOf(first.getId()),
+                                found.indexOf(second.getId())))
+                        .limit(maxCandidates)
+                        .collect(Collectors.toList());
+                if (!candidates.isEmpty()) {
+                    requestMatchRepository.saveAll(requestId, candidates);
+                }
+                return candidates.size();
+            });
+            log.info("К запросу с ID {} подобрано {} вещей.", requestId, saved);
+            return saved == null ? 0 : saved;
+        } catch (RuntimeException e) {
+            log.warn("Не удалось подобрать вещи к запросу с ID {}: {}", requestId, e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private static CustomizableThreadFactory threadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("request-match-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.request.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Параметры страницы запросов: свои запросы пользователя или запросы других пользователей
+ * и позиция. Позиция задается ключом последней отданной записи (afterCreated, afterId) или,
+ * для первой страницы старого API, смещением offset. Без userId - запросы всех пользователей,
+ * без limit - все подходящие запросы.
+ */
+@Getter
+@Builder
+public class ItemRequestPageQuery {
+    private final Long userId;
+    private final boolean own;
+    private final LocalDateTime afterCreated;
+    private final Long afterId;
+    private final int offset;
+    private final Integer limit;
+}
@@ -1,6 +1,5 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -8,9 +7,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import java.util.List;
 
 @Repository
-public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>, ItemRequestRepositoryCustom {
 
     List<ItemRequest> findAllByRequestorId(Long userId);
-
-    List<ItemRequest> findAllByRequestorIdIsNot(Long userId, PageRequest pageRequest);
 }
\ No newline at end of file
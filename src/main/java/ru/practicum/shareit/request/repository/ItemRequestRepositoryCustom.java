@@ -0,0 +1,10 @@
+package ru.practicum.shareit.request.repository;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.List;
+
+public interface ItemRequestRepositoryCustom {
+
+    List<ItemRequest> findPage(ItemRequestPageQuery query);
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.request.repository;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Страница запросов по ключу (created, id) в порядке убывания. Позиция страницы выполняется в SQL
+ * по индексу, поэтому глубокие страницы читают только свои строки, а не все предыдущие.
+ * Без userId читаются запросы всех пользователей.
+ */
+public class ItemRequestRepositoryCustomImpl implements ItemRequestRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ItemRequest> findPage(ItemRequestPageQuery query) {
+        StringBuilder jpql = new StringBuilder("SELECT r FROM ItemRequest r WHERE 1 = 1");
+        if (query.getUserId() != null) {
+            jpql.append(query.isOwn() ? " AND r.requestor.id = :userId" : " AND r.requestor.id <> :userId");
+        }
+        if (query.getAfterId() != null) {
+            jpql.append(" AND (r.created < :afterCreated OR (r.created = :afterCreated AND r.id < :afterId))");
+        }
+        jpql.append(" ORDER BY r.created DESC, r.id DESC");
+
+        TypedQuery<ItemRequest> page = entityManager.createQuery(jpql.toString(), ItemRequest.class);
+        if (query.getUserId() != null) {
+            page.setParameter("userId", query.getUserId());
+        }
+        if (query.getAfterId() != null) {
+            page.setParameter("afterCreated", query.getAfterCreated())
+                    .setParameter("afterId", query.getAfterId());
+        }
+        if (query.getLimit() != null) {
+            page.setMaxResults(query.getLimit());
+        }
+        return page.setFirstResult(query.getOffset())
+                .getResultList();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.request.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Вещи, подобранные к запросу: строка request_match привязывает вещь к запросу
+ * и одновременно является уведомлением владельцу вещи.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RequestMatchRepository {
+
+    private static final String INSERT_MATCH = "INSERT INTO request_match (request_id, item_id, owner_id, created) "
+            + "VALUES (:requestId, :itemId, :ownerId, :created)";
+
+    private static final String FIND_BY_REQUESTS = "SELECT m.request_id, i.id, i.name, i.description, i.available "
+            + "FROM request_match m JOIN item i ON i.id = m.item_id "
+            + "WHERE m.request_id IN (:requestIds) "
+            + "ORDER BY m.request_id, i.id";
+
+    private static final String FIND_BY_OWNER = "SELECT m.request_id, i.id, i.name, i.description, i.available "
+            + "FROM request_match m JOIN item i ON i.id = m.item_id "
+            + "WHERE m.owner_id = :ownerId "
+            + "ORDER BY m.created DESC, m.request_id DESC, i.id "
+            + "LIMIT :limit";
+
+    private static final RowMapper<ItemDto> CANDIDATE = (rs, rowNum) -> ItemDto.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .description(rs.getString("description"))
+            .available(rs.getBoolean("available"))
+            .requestId(rs.getLong("request_id"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void saveAll(Long requestId, List<Item> items) {
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_MATCH, items.stream()
+                .map(item -> new MapSqlParameterSource()
+                        .addValue("requestId", requestId)
+                        .addValue("itemId", item.getId())
+                        .addValue("ownerId", item.getOwner().getId())
+                        .addValue("created", created))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Подобранные вещи для нескольких запросов, requestId каждой вещи - id запроса, к которому она подобрана.
+     */
+    public List<ItemDto> findCandidates(Collection<Long> requestIds) {
+        return jdbcTemplate.query(FIND_BY_REQUESTS, new MapSqlParameterSource("requestIds", requestIds), CANDIDATE);
+    }
+
+    /**
+     * Последние подборы вещей владельца, новые первыми.
+     */
+    public List<ItemDto> findByOwner(Long ownerId, int limit) {
+        return jdbcTemplate.query(FIND_BY_OWNER, new MapSqlParameterSource("ownerId", ownerId)
+                .addValue("limit", limit), CANDIDATE);
+    }
+}
@@ -1,16 +1,20 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
 
 public interface ItemRequestService {
 
-    List<ItemRequestDto> getRequests(Long userId);
+    KeysetPage<ItemRequestDto> getRequests(Long userId, String after, Integer size);
 
     ItemRequestDto addRequest(Long userId, ItemRequestDto itemRequestDto);
 
     ItemRequestDto getRequestById(Long userId, Long requestId);
 
-    List<ItemRequestDto> getAllRequest(Long userId, Integer from, Integer size);
+    KeysetPage<ItemRequestDto> getAllRequest(Long userId, String after, Integer from, Integer size);
+
+    List<ItemDto> getMatches(Long userId, Integer size);
 }
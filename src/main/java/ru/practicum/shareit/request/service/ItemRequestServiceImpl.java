@@ -2,22 +2,27 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.match.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestPageQuery;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,69 +30,136 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemRequestServiceImpl implements ItemRequestService {
     private static final String USER_NOT_FOUND = "Пользователь не найден.";
+    static final int DEFAULT_PAGE_SIZE = 10;
     private final ItemRequestRepository itemRequestRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final ItemRepository itemRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final RequestFeed requestFeed;
 
 
     @Override
-    public List<ItemRequestDto> getRequests(Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
-        return itemRequestRepository.findAllByRequestorId(userId)
-                .stream()
-                .map(this::toItemRequestDto)
-                .collect(Collectors.toList());
+    public KeysetPage<ItemRequestDto> getRequests(Long userId, String after, Integer size) {
+        if (after == null && size == null) {
+            // без after и size отдаются все свои запросы
+            userCache.find(userId)
+                    .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
+            return new KeysetPage<>(toItemRequestDtos(itemRequestRepository.findPage(ItemRequestPageQuery.builder()
+                    .userId(userId)
+                    .own(true)
+                    .build()), true), null);
+        }
+        return getPage(userId, true, after, 0, size != null ? size : DEFAULT_PAGE_SIZE);
     }
 
     @Override
     public ItemRequestDto addRequest(Long userId, ItemRequestDto itemRequestDto) {
         itemRequestDto.setRequestor(userId);
         itemRequestDto.setCreated(LocalDateTime.now());
-        User user = userRepository.findById(userId)
+        User user = userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
-        ItemRequest itemRequest = RequestMapper.toItemRequest(itemRequestDto, user);
-        return this.toItemRequestDto(itemRequestRepository.save(itemRequest));
+        ItemRequest itemRequest = itemRequestRepository.save(RequestMapper.toItemRequest(itemRequestDto, user));
+        itemRequestMatcher.submit(itemRequest);
+        ItemRequestDto saved = toItemRequestDtos(List.of(itemRequest), false).get(0);
+        requestFeed.add(saved);
+        return saved;
     }
 
     @Override
     public ItemRequestDto getRequestById(Long userId, Long requestId) {
-        userRepository.findById(userId)
+        userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
-        return this.toItemRequestDto(itemRequestRepository.findById(requestId)
-                .orElseThrow(() -> new ObjectNotFoundException("Запрос не найден.")));
+        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new ObjectNotFoundException("Запрос не найден."));
+        return toItemRequestDtos(List.of(itemRequest), itemRequest.getRequestor().getId().equals(userId)).get(0);
+    }
+
+    @Override
+    public KeysetPage<ItemRequestDto> getAllRequest(Long userId, String after, Integer from, Integer size) {
+        return getPage(userId, false, after, from, size);
     }
 
     @Override
-    public List<ItemRequestDto> getAllRequest(Long userId, Integer from, Integer size) {
-        if (from < 0 || size < 0) {
+    public List<ItemDto> getMatches(Long userId, Integer size) {
+        if (size <= 0) {
             log.info("Аргументы не могут быть отрицательными.");
             throw new InvalidEntityException("Аргументы не могут быть отрицательными.");
         }
-        userRepository.findById(userId)
+        userCache.find(userId)
                 .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
-        return itemRequestRepository
-                .findAllByRequestorIdIsNot(userId, PageRequest.of((from / size), size, Sort.by("created")
-                                .descending()))
-                .stream()
-                .map(this::toItemRequestDto)
-                .collect(Collectors.toList());
+        return requestMatchRepository.findByOwner(userId, size);
+    }
+
+    private KeysetPage<ItemRequestDto> getPage(Long userId, boolean own, String after, Integer from,
+                                               Integer size) {
+        if (from < 0 || size <= 0) {
+            log.info("Аргументы не могут быть отрицательными.");
+            throw new InvalidEntityException("Аргументы не могут быть отрицательными.");
+        }
+        userCache.find(userId)
+                .orElseThrow(() -> new ObjectNotFoundException(USER_NOT_FOUND));
+
+        ItemRequestPageQuery.ItemRequestPageQueryBuilder query = ItemRequestPageQuery.builder()
+                .userId(userId)
+                .own(own)
+                .limit(size + 1);
+        if (after != null) {
+            KeysetCursor.decode(after, 2, keys -> query
+                    .afterCreated(LocalDateTime.parse(keys[0]))
+                    .afterId(Long.valueOf(keys[1])));
+        } else {
+            query.offset(from);
+        }
+
+        ItemRequestPageQuery pageQuery = query.build();
+        List<ItemRequestDto> requests = own ? null : requestFeed.find(pageQuery, this::findNewest).orElse(null);
+        if (requests == null) {
+            requests = toItemRequestDtos(itemRequestRepository.findPage(pageQuery), own);
+        }
+        String nextCursor = null;
+        if (requests.size() > size) {
+            requests = requests.subList(0, size);
+            ItemRequestDto last = requests.get(size - 1);
+            nextCursor = KeysetCursor.encode(last.getCreated(), last.getId());
+        }
+        return new KeysetPage<>(requests, nextCursor);
     }
 
-    private ItemRequestDto toItemRequestDto(ItemRequest itemRequest) {
-        return ItemRequestDto.builder()
-                .id(itemRequest.getId())
-                .description(itemRequest.getDescription())
-                .created(itemRequest.getCreated())
-                .requestor(itemRequest.getRequestor().getId())
-                .items(putItemDtoToRequest(itemRequest))
-                .build();
+    private List<ItemRequestDto> findNewest(int limit) {
+        return toItemRequestDtos(itemRequestRepository.findPage(ItemRequestPageQuery.builder()
+                .limit(limit)
+                .build()), false);
     }
 
-    private List<ItemDto> putItemDtoToRequest(ItemRequest itemRequest) {
-        return itemRepository.findAllByRequest_Id(itemRequest.getId())
-                .stream()
+    /**
+     * Ответы на все запросы страницы загружаются одним запросом request_id IN (...) и раскладываются
+     * по запросам в памяти, а не отдельным запросом на каждый ItemRequest. Подобранные вещи (candidates)
+     * видит только автор запроса, они загружаются так же одним запросом.
+     */
+    private List<ItemRequestDto> toItemRequestDtos(List<ItemRequest> itemRequests, boolean own) {
+        if (itemRequests.isEmpty()) {
+            return List.of();
+        }
+        List<Long> requestIds = itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemDto>> items = itemRepository.findAllByRequest_IdIn(requestIds).stream()
                 .map(RequestMapper::toRequestItemDto)
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        Map<Long, List<ItemDto>> candidates = own
+                ? requestMatchRepository.findCandidates(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId))
+                : Map.of();
+        return itemRequests.stream()
+                .map(itemRequest -> ItemRequestDto.builder()
+                        .id(itemRequest.getId())
+                        .description(itemRequest.getDescription())
+                        .created(itemRequest.getCreated())
+                        .requestor(itemRequest.getRequestor().getId())
+                        .items(items.getOrDefault(itemRequest.getId(), List.of()))
+                        .candidates(own ? candidates.getOrDefault(itemRequest.getId(), List.of()) : null)
+                        .build())
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
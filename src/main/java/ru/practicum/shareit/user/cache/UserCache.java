@@ -0,0 +1,157 @@
+package ru.practicum.shareit.user.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU кэш пользователей по id на shareit.users.cache.max-entries записей. Запоминаются и отсутствующие
+ * id, чтобы запросы от несуществующего пользователя тоже не доходили до базы. Изменения пользователей
+ * на этом узле сбрасывают запись сразу и после коммита, изменения на других узлах станут видны через
+ * ttl (для отсутствующих id - через negative-ttl).
+ * <p>
+ * Каждый вызов получает свою копию пользователя: ее можно присвоить связи новой сущности, но она не
+ * привязана к сессии Hibernate.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    private final Map<Long, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${shareit.users.cache.max-entries:10000}") int maxEntries,
+                     @Value("${shareit.users.cache.ttl:10m}") Duration ttl,
+                     @Value("${shareit.users.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > UserCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Optional<User> find(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && now < entry.expiresAt) {
+                if (entry.user == null) {
+                    negativeHits.increment();
+                    return Optional.empty();
+                }
+                hits.increment();
+                return Optional.of(copy(entry.user));
+            }
+        }
+        misses.increment();
+        long loadedGeneration = generation.get();
+        Optional<User> user = userRepository.findById(userId).map(UserCache::copy);
+        if (maxEntries > 0) {
+            synchronized (entries) {
+                if (generation.get() == loadedGeneration) {
+                    entries.put(userId, new Entry(user.orElse(null),
+                            now + (user.isPresent() ? ttlMillis : negativeTtlMillis)));
+                }
+            }
+        }
+        return user.map(UserCache::copy);
+    }
+
+    /**
+     * Сбрасывает запись пользователя сейчас и еще раз после коммита текущей транзакции: значение,
+     * прочитанное другим потоком до коммита, не останется в кэше.
+     */
+    public void evict(Long userId) {
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.users.cache.requests", this, UserCache::getHits)
+                .tag("result", "hit")
+                .description("Пользователи, найденные в кэше")
+                .register(registry);
+        FunctionCounter.builder("shareit.users.cache.requests", this, UserCache::getNegativeHits)
+                .tag("result", "negative-hit")
+                .description("Отсутствующие id пользователей, отвеченные из кэша")
+                .register(registry);
+        FunctionCounter.builder("shareit.users.cache.requests", this, UserCache::getMisses)
+                .tag("result", "miss")
+                .description("Поиски пользователя, ушедшие в базу")
+                .register(registry);
+        Gauge.builder("shareit.users.cache.size", this, UserCache::size)
+                .description("Число записей в кэше пользователей")
+                .register(registry);
+    }
+
+    private void remove(Long userId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final User user;
+        private final long expiresAt;
+    }
+}
@@ -1,12 +1,23 @@
 package ru.practicum.shareit.user.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+import ru.practicum.shareit.user.service.UserImportService;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -15,7 +26,11 @@ import java.util.List;
 @RequestMapping(path = "/users")
 public class UserController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public List<UserDto> getAllUsers() {
@@ -35,6 +50,27 @@ public class UserController {
         return userService.addUser(userDto);
     }
 
+    /**
+     * Результат каждой строки отдается NDJSON строкой по мере обработки файла.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             InputStream body) {
+        log.info("Получен POST запрос по эндпоинту /users/import на импорт Users из {}.", contentType);
+        boolean csv = MediaType.parseMediaType(TEXT_CSV_VALUE).includes(contentType);
+        ObjectWriter writer = objectMapper.writerFor(UserImportResultDto.class);
+        StreamingResponseBody results = out -> userImportService.importUsers(body, csv, result -> {
+            try {
+                out.write(writer.writeValueAsBytes(result));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
     @PatchMapping("/{id}")
     public UserDto update(@PathVariable("id") Long userId, @RequestBody UserDto userDto) {
         log.info("Получен PATCH запрос по эндпоинту /users/{} на обновление данных User с ID {}.", userId, userId);
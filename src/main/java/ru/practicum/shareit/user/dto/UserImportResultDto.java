@@ -0,0 +1,14 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserImportResultDto {
+
+    private Integer index;
+    private Long id;
+    private String email;
+    private String error;
+}
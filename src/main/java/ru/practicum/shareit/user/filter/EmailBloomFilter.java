@@ -0,0 +1,111 @@
+package ru.practicum.shareit.user.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по email пользователей (без пробелов по краям, в нижнем регистре). Если фильтр отвечает,
+ * что email нет, проверка existsUserByEmail не нужна: новый email сразу пишется в базу, а редкий
+ * дубликат, добавленный на другом узле, отсекает уникальный индекс users.email. Размер рассчитан на
+ * shareit.users.email-filter.expected-emails адресов с долей ложных срабатываний false-positive-rate.
+ * <p>
+ * Фильтр заполняется из базы при старте, до этого он отвечает, что email может быть занят. Удаленные
+ * и измененные адреса из фильтра не удаляются и дают только лишнюю проверку в базе.
+ */
+@Component
+@Slf4j
+public class EmailBloomFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    @Autowired
+    public EmailBloomFilter(JdbcTemplate jdbcTemplate,
+                            @Value("${shareit.users.email-filter.expected-emails:1000000}") long expectedEmails,
+                            @Value("${shareit.users.email-filter.false-positive-rate:0.01}")
+                            double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        long words = Math.max(1L, (long) Math.ceil(-expectedEmails * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)) / Long.SIZE));
+        this.bits = new AtomicLongArray(Math.toIntExact(words));
+        this.bitCount = words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(1L, expectedEmails)
+                * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long[] seeded = new long[1];
+        jdbcTemplate.query("SELECT email FROM users WHERE email IS NOT NULL", rs -> {
+            put(rs.getString(1));
+            seeded[0]++;
+        });
+        ready = true;
+        log.info("Фильтр email заполнен: {} адресов, {} бит, {} хэш-функций.", seeded[0], bitCount, hashCount);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(String email) {
+        long hash = hash(email);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * false - email точно не встречался, true - email, возможно, уже занят.
+     */
+    public boolean mightContain(String email) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(email);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-битный FNV-1a с финальным перемешиванием splitmix64, половины результата - две базовые
+     * хэш-функции для двойного хэширования.
+     */
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.user.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class UserBatchRepository {
+
+    private static final String INSERT_USER = "INSERT INTO users (name, email) VALUES (?, ?)";
+    private static final String FIND_EMAILS = "SELECT email FROM users WHERE email IN (:emails)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return new HashSet<>(jdbcTemplate.queryForList(FIND_EMAILS, new MapSqlParameterSource("emails", emails),
+                String.class));
+    }
+
+    public List<User> saveAll(List<User> users) {
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<List<User>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_USER, new String[]{"id"})) {
+                for (User user : users) {
+                    statement.setString(1, user.getName());
+                    statement.setString(2, user.getEmail());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<User> saved = new ArrayList<>(users.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (User user : users) {
+                        keys.next();
+                        user.setId(keys.getLong(1));
+                        saved.add(user);
+                    }
+                }
+                return saved;
+            }
+        });
+    }
+}
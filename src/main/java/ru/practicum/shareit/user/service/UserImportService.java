@@ -0,0 +1,11 @@
+package ru.practicum.shareit.user.service;
+
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface UserImportService {
+
+    void importUsers(InputStream body, boolean csv, Consumer<UserImportResultDto> results);
+}
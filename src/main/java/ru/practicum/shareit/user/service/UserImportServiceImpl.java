@@ -0,0 +1,261 @@
+package ru.practicum.shareit.user.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+import ru.practicum.shareit.user.filter.EmailBloomFilter;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserBatchRepository;
+
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт пользователей из NDJSON или CSV (name,email; строка заголовка необязательна и
+ * может задавать другой порядок колонок). Строки обрабатываются пачками по CHUNK_SIZE: email пачки
+ * проверяются одним запросом IN (...) (только те, что могут быть в фильтре Блума), новые пользователи
+ * вставляются JDBC batch в отдельной транзакции, результаты пачки сразу отдаются в results.
+ * В памяти держится только текущая пачка, поэтому размер файла не ограничен. Повтор email из
+ * уже вставленной пачки находится запросом к базе, повтор внутри пачки - по самой пачке.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    private static final String DUPLICATE_ERROR = "Такой email уже существует.";
+
+    private final UserBatchRepository userBatchRepository;
+    private final EmailBloomFilter emailFilter;
+    private final UserCache userCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Override
+    public void importUsers(InputStream body, boolean csv, Consumer<UserImportResultDto> results) {
+        Chunk chunk = new Chunk(results);
+        try {
+            if (csv) {
+                readCsv(body, chunk);
+            } else {
+                readLines(body, chunk);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.flush();
+        log.info("Импорт пользователей: {} строк, {} пользователей добавлено.", chunk.total, chunk.imported);
+    }
+
+    private void readLines(InputStream body, Chunk chunk) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(UserDto.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int index = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(index, reader.readValue(line));
+            } catch (JsonParseException | JsonMappingException e) {
+                chunk.fail(index, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+            index++;
+        }
+    }
+
+    private void readCsv(InputStream body, Chunk chunk) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int nameColumn = 0;
+        int emailColumn = 1;
+        boolean first = true;
+        int index = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(line);
+            if (first) {
+                first = false;
+                List<String> header = fields.stream()
+                        .map(field -> field.trim().toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toList());
+                if (header.contains("email")) {
+                    nameColumn = header.indexOf("name");
+                    emailColumn = header.indexOf("email");
+                    continue;
+                }
+            }
+            if (fields.size() <= Math.max(nameColumn, emailColumn)) {
+                chunk.fail(index, "Некорректная строка CSV, ожидаются колонки name,email.");
+            } else {
+                chunk.add(index, UserDto.builder()
+                        .name(nameColumn >= 0 ? fields.get(nameColumn).trim() : null)
+                        .email(fields.get(emailColumn).trim())
+                        .build());
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Поля строки CSV: разделитель - запятая, поле в двойных кавычках может содержать запятые,
+     * кавычка внутри такого поля удваивается.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+            i++;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private class Chunk {
+        private final Consumer<UserImportResultDto> results;
+        private final List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+        private long total;
+        private long imported;
+
+        private Chunk(Consumer<UserImportResultDto> results) {
+            this.results = results;
+        }
+
+        private void add(int index, UserDto userDto) {
+            Row row = new Row(index, userDto);
+            if (userDto == null || !validator.validate(userDto).isEmpty()) {
+                row.error = "Некорректный email.";
+            }
+            append(row);
+        }
+
+        private void fail(int index, String error) {
+            Row row = new Row(index, null);
+            row.error = error;
+            append(row);
+        }
+
+        private void append(Row row) {
+            rows.add(row);
+            if (rows.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Map<String, Row> candidates = new LinkedHashMap<>();
+            for (Row row : rows) {
+                if (row.error == null && candidates.putIfAbsent(row.user.getEmail(), row) != null) {
+                    row.error = DUPLICATE_ERROR;
+                }
+            }
+            List<String> maybeTaken = candidates.keySet().stream()
+                    .filter(emailFilter::mightContain)
+                    .collect(Collectors.toList());
+            if (!maybeTaken.isEmpty()) {
+                Set<String> existing = userBatchRepository.findExistingEmails(maybeTaken);
+                existing.forEach(email -> candidates.remove(email).error = DUPLICATE_ERROR);
+            }
+            if (!candidates.isEmpty()) {
+                save(new ArrayList<>(candidates.values()));
+            }
+            rows.forEach(row -> results.accept(UserImportResultDto.builder()
+                    .index(row.index)
+                    .id(row.id)
+                    .email(row.user != null ? row.user.getEmail() : null)
+                    .error(row.error)
+                    .build()));
+            total += rows.size();
+            rows.clear();
+        }
+
+        private void save(List<Row> batch) {
+            try {
+                insert(batch);
+            } catch (DataAccessException e) {
+                log.info("Пачка из {} пользователей не сохранена, сохраняем по одному: {}", batch.size(),
+                        e.getMessage());
+                for (Row row : batch) {
+                    try {
+                        insert(List.of(row));
+                    } catch (DuplicateKeyException rowException) {
+                        row.error = DUPLICATE_ERROR;
+                    } catch (DataAccessException rowException) {
+                        row.error = "Не удалось сохранить пользователя.";
+                    }
+                }
+            }
+        }
+
+        private void insert(List<Row> batch) {
+            List<User> users = batch.stream()
+                    .map(row -> new User(null, row.user.getName(), row.user.getEmail()))
+                    .collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(status -> userBatchRepository.saveAll(users));
+            for (int i = 0; i < batch.size(); i++) {
+                User user = users.get(i);
+                batch.get(i).id = user.getId();
+                emailFilter.put(user.getEmail());
+                userCache.evict(user.getId());
+            }
+            imported += batch.size();
+        }
+    }
+
+    private static class Row {
+        private final int index;
+        private final UserDto user;
+        private Long id;
+        private String error;
+
+        private Row(int index, UserDto user) {
+            this.index = index;
+            this.user = user;
+        }
+    }
+}
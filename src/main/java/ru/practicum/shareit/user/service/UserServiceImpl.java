@@ -2,15 +2,24 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.exception.EntityAlreadyExist;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.filter.EmailBloomFilter;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.transaction.Transactional;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +29,12 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
+    private final ItemSearchEngine searchEngine;
+    private final ItemResponseCache itemResponseCache;
+    private final SearchResultCache searchResultCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final UserCache userCache;
+    private final EmailBloomFilter emailFilter;
 
     @Override
     public List<UserDto> getUsers() {
@@ -42,12 +57,13 @@ public class UserServiceImpl implements UserService {
             log.info("Некорректный email.");
             throw new IllegalArgumentException("Некорректный email.");
         }
-        if (repository.existsUserByEmail(userDto.getEmail())) {
-            repository.save(UserMapper.toUser(userDto));
+        if (isEmailTaken(userDto.getEmail())) {
             log.info("Пользователь уже существует.");
             throw new EntityAlreadyExist("Пользователь уже существует.");
         }
-        return UserMapper.toUserDto(repository.save(UserMapper.toUser(userDto)));
+        User savedUser = save(UserMapper.toUser(userDto), "Пользователь уже существует.");
+        userCache.evict(savedUser.getId());
+        return UserMapper.toUserDto(savedUser);
     }
 
     @Override
@@ -55,7 +71,11 @@ public class UserServiceImpl implements UserService {
 
         User updateUser = repository.findById(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("Пользователь не найден."));
-        return UserMapper.toUserDto(repository.save(updateNameAndEmailUser(updateUser, userDto)));
+        UserDto updatedUser = UserMapper.toUserDto(save(updateNameAndEmailUser(updateUser, userDto),
+                "Такой email уже существует."));
+        userCache.evict(userId);
+        itemResponseCache.clear();
+        return updatedUser;
     }
 
     @Transactional
@@ -66,6 +86,11 @@ public class UserServiceImpl implements UserService {
             throw new ObjectNotFoundException("Пользователь не найден.");
         }
         repository.deleteById(userId);
+        userCache.evict(userId);
+        searchEngine.removeOwner(userId);
+        searchResultCache.invalidate();
+        itemResponseCache.clear();
+        bookingIntervalIndex.clear();
     }
 
     private User updateNameAndEmailUser(User updatedUser, UserDto user) {
@@ -74,7 +99,7 @@ public class UserServiceImpl implements UserService {
             updatedUser.setName(user.getName());
         }
         if (user.getEmail() != null && !updatedUser.getEmail().equals(user.getEmail())) {
-            if (!repository.existsUserByEmail(user.getEmail())) {
+            if (!isEmailTaken(user.getEmail())) {
                 updatedUser.setEmail(user.getEmail());
             } else {
                 log.info("Такой email уже существует.");
@@ -83,4 +108,45 @@ public class UserServiceImpl implements UserService {
         }
         return updatedUser;
     }
+
+    /**
+     * Запрос в базу нужен, только если email может быть в фильтре Блума.
+     */
+    private boolean isEmailTaken(String email) {
+        return emailFilter.mightContain(email) && repository.existsUserByEmail(email);
+    }
+
+    /**
+     * Занятый email, не найденный фильтром (добавлен на другом узле или одновременно), отсекает
+     * уникальный индекс users.email.
+     */
+    private User save(User user, String duplicateError) {
+        User savedUser;
+        try {
+            savedUser = repository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            log.info("{} {}", duplicateError, user.getEmail());
+            throw new EntityAlreadyExist(duplicateError);
+        }
+        emailFilter.put(savedUser.getEmail());
+        return savedUser;
+    }
+
+    /**
+     * Нарушение уникальности (SQLState 23505 в PostgreSQL и H2) в users возможно только по email.
+     */
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && "23505".equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,19 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE item ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(name, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS item_search_vector_idx ON item USING GIN (search_vector) WHERE available;
+
+CREATE INDEX IF NOT EXISTS item_search_trgm_idx ON item
+    USING GIN (LOWER(COALESCE(name, '') || ' ' || COALESCE(description, '')) gin_trgm_ops) WHERE available;
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE booking DROP CONSTRAINT IF EXISTS booking_no_overlap;
+
+ALTER TABLE booking ADD CONSTRAINT booking_no_overlap EXCLUDE USING GIST
+    (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status IN ('WAITING', 'APPROVED'));
@@ -2,7 +2,10 @@ DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS request CASCADE;
 DROP TABLE IF EXISTS item CASCADE;
 DROP TABLE IF EXISTS booking CASCADE;
+DROP TABLE IF EXISTS booking_archive CASCADE;
 DROP TABLE IF EXISTS comment CASCADE;
+DROP TABLE IF EXISTS item_booking_stats CASCADE;
+DROP TABLE IF EXISTS request_match CASCADE;
 
 CREATE TABLE IF NOT EXISTS users
 (
@@ -16,7 +19,7 @@ CREATE TABLE IF NOT EXISTS request
     id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     description VARCHAR(50),
     requestor_id INT REFERENCES users (id) ON DELETE CASCADE,
-    created DATE
+    created TIMESTAMP WITHOUT TIME ZONE
     );
 
 CREATE TABLE IF NOT EXISTS item
@@ -26,7 +29,8 @@ CREATE TABLE IF NOT EXISTS item
     description VARCHAR(255),
     available BOOLEAN,
     owner_id INT REFERENCES users (id) ON DELETE CASCADE,
-    request_id INT REFERENCES request (id) ON DELETE CASCADE
+    request_id INT REFERENCES request (id) ON DELETE CASCADE,
+    updated TIMESTAMP WITHOUT TIME ZONE
 );
 
 CREATE TABLE IF NOT EXISTS booking
@@ -36,7 +40,23 @@ CREATE TABLE IF NOT EXISTS booking
     end_date TIMESTAMP WITHOUT TIME ZONE,
     status VARCHAR(30),
     item_id INT REFERENCES item (id) ON DELETE CASCADE,
-    booker_id INT REFERENCES users (id) ON DELETE CASCADE
+    booker_id INT REFERENCES users (id) ON DELETE CASCADE,
+    owner_id INT REFERENCES users (id) ON DELETE CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS booking_archive
+(
+    id INT PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE,
+    end_date TIMESTAMP WITHOUT TIME ZONE,
+    status VARCHAR(30),
+    item_id INT REFERENCES item (id) ON DELETE CASCADE,
+    booker_id INT REFERENCES users (id) ON DELETE CASCADE,
+    owner_id INT REFERENCES users (id) ON DELETE CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS comment
@@ -46,4 +66,41 @@ CREATE TABLE IF NOT EXISTS comment
     created TIMESTAMP WITHOUT TIME ZONE,
     item_id INT REFERENCES item (id) ON DELETE CASCADE,
     user_id INT REFERENCES users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS request_match
+(
+    request_id INT REFERENCES request (id) ON DELETE CASCADE,
+    item_id INT REFERENCES item (id) ON DELETE CASCADE,
+    owner_id INT REFERENCES users (id) ON DELETE CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE,
+    PRIMARY KEY (request_id, item_id)
+);
+
+CREATE TABLE IF NOT EXISTS item_booking_stats
+(
+    item_id INT REFERENCES item (id) ON DELETE CASCADE,
+    stats_date DATE,
+    bookings INT NOT NULL DEFAULT 0,
+    approved INT NOT NULL DEFAULT 0,
+    rejected INT NOT NULL DEFAULT 0,
+    booked_minutes BIGINT NOT NULL DEFAULT 0,
+    lead_minutes BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (item_id, stats_date)
+);
+
+CREATE INDEX IF NOT EXISTS booking_item_start_idx ON booking (item_id, start_date);
+CREATE INDEX IF NOT EXISTS booking_booker_start_idx ON booking (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_booker_status_start_idx ON booking (booker_id, status, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_owner_start_idx ON booking (owner_id, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_owner_status_start_idx ON booking (owner_id, status, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_status_start_idx ON booking (status, start_date);
+CREATE INDEX IF NOT EXISTS booking_end_idx ON booking (end_date);
+CREATE INDEX IF NOT EXISTS booking_archive_booker_start_idx ON booking_archive (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_archive_owner_start_idx ON booking_archive (owner_id, start_date, id);
+CREATE INDEX IF NOT EXISTS booking_archive_item_start_idx ON booking_archive (item_id, start_date);
+CREATE INDEX IF NOT EXISTS request_requestor_created_idx ON request (requestor_id, created, id);
+CREATE INDEX IF NOT EXISTS request_created_idx ON request (created, id);
+CREATE INDEX IF NOT EXISTS request_match_owner_created_idx ON request_match (owner_id, created);
+CREATE INDEX IF NOT EXISTS item_owner_id_idx ON item (owner_id, id);
+CREATE INDEX IF NOT EXISTS item_updated_idx ON item (updated);
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class BookingArchiveJobTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingArchiveJob bookingArchiveJob;
+
+    @BeforeEach
+    void setUp() {
+        bookingArchiveJob = new BookingArchiveJob(bookingRepository, bookingArchiveRepository, transactionTemplate,
+                Duration.ofDays(180), 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(bookingRepository.deleteAllByIdIn(anyCollection()))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+    }
+
+    @Test
+    void archiveEndedBookingsCopiesThenDeletesEachBatch() {
+        when(bookingRepository.lockEndedBookings(any(LocalDateTime.class), any()))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+
+        bookingArchiveJob.archiveEndedBookings();
+
+        verify(bookingRepository, times(2)).lockEndedBookings(any(LocalDateTime.class), eq(PageRequest.of(0, 2)));
+        InOrder inOrder = inOrder(bookingArchiveRepository, bookingRepository);
+        inOrder.verify(bookingArchiveRepository).copyFromBookings(List.of(1L, 2L));
+        inOrder.verify(bookingRepository).deleteAllByIdIn(List.of(1L, 2L));
+        inOrder.verify(bookingArchiveRepository).copyFromBookings(List.of(3L));
+        inOrder.verify(bookingRepository).deleteAllByIdIn(List.of(3L));
+    }
+
+    @Test
+    void archiveEndedBookingsSkipsEmptyBatch() {
+        when(bookingRepository.lockEndedBookings(any(LocalDateTime.class), any())).thenReturn(List.of());
+
+        bookingArchiveJob.archiveEndedBookings();
+
+        verify(bookingArchiveRepository, never()).copyFromBookings(anyCollection());
+        verify(bookingRepository, never()).deleteAllByIdIn(anyCollection());
+    }
+}
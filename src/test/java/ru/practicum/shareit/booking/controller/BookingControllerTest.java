@@ -8,11 +8,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.enums.BookingTicketStatus;
+import ru.practicum.shareit.exception.BookingConflictException;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.user.dto.UserInfoDto;
 
 import java.nio.charset.StandardCharsets;
@@ -24,6 +30,8 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -76,6 +84,20 @@ class BookingControllerTest {
                 .andExpect(content().json(mapper.writeValueAsString(bookingInfoDto)));
     }
 
+    @Test
+    void addBookingConflictTest() throws Exception {
+        when(bookingService.addBooking(anyLong(), any(BookingDto.class)))
+                .thenThrow(new BookingConflictException("Вещь уже забронирована на это время."));
+
+        mockMvc.perform(post("/bookings")
+                        .content(mapper.writeValueAsString(bookingInfoDto))
+                        .header(USERID_HEADER, 10)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void updateBookingStatusIsOkTest() throws Exception {
         when(bookingService.updateBookingStatus(anyLong(), anyLong(), anyBoolean()))
@@ -106,8 +128,8 @@ class BookingControllerTest {
 
     @Test
     void getBookingIsOkTest() throws Exception {
-        when(bookingService.getBooking(any(), any(), anyInt(), anyInt()))
-                .thenReturn(List.of(bookingInfoDto));
+        when(bookingService.getBooking(any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(new KeysetPage<>(List.of(bookingInfoDto), "next"));
 
         mockMvc.perform(get("/bookings" + "?state=ALL")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -115,6 +137,7 @@ class BookingControllerTest {
                         .header(USERID_HEADER, 1L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(bookingInfoDto))));
 
         mockMvc.perform(get("/bookings" + "?state=ALL&size=-10")
@@ -127,8 +150,8 @@ class BookingControllerTest {
 
     @Test
     void getOwnerBookingIsOkTest() throws Exception {
-        when(bookingService.getOwnerBooking(any(), any(), anyInt(), anyInt()))
-                .thenReturn(List.of(bookingInfoDto));
+        when(bookingService.getOwnerBooking(any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(new KeysetPage<>(List.of(bookingInfoDto), null));
 
         mockMvc.perform(get("/bookings" + "/owner?state=ALL")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -136,6 +159,7 @@ class BookingControllerTest {
                         .header(USERID_HEADER, 10L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetPage.NEXT_CURSOR_HEADER))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(bookingInfoDto))));
 
         mockMvc.perform(get("/bookings" + "/owner?state=ALL&size=-10")
@@ -145,4 +169,57 @@ class BookingControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateBookingStatusesReturnsOutcomePerId() throws Exception {
+        List<BookingDecisionResultDto> results = List.of(
+                BookingDecisionResultDto.builder().id(1L).status(BookingStatus.APPROVED).build(),
+                BookingDecisionResultDto.builder().id(2L).error("Бронирование не найдено.").build());
+        when(bookingService.updateBookingStatuses(10L, List.of(1L, 2L), true)).thenReturn(results);
+
+        mockMvc.perform(patch("/bookings")
+                        .param("approved", "true")
+                        .content(mapper.writeValueAsString(List.of(1L, 2L)))
+                        .header(USERID_HEADER, 10)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void addBookingAsyncReturnsTicket() throws Exception {
+        BookingTicketDto ticket = BookingTicketDto.builder().id("ticket").status(BookingTicketStatus.PENDING).build();
+        when(bookingService.addBookingAsync(anyLong(), any(BookingDto.class))).thenReturn(ticket);
+
+        mockMvc.perform(post("/bookings")
+                        .param("async", "true")
+                        .content(mapper.writeValueAsString(bookingInfoDto))
+                        .header(USERID_HEADER, 10)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/bookings/tickets/ticket"))
+                .andExpect(content().json(mapper.writeValueAsString(ticket)));
+
+        when(bookingService.getTicket(10L, "ticket")).thenReturn(ticket);
+        mockMvc.perform(get("/bookings/tickets/ticket")
+                        .header(USERID_HEADER, 10)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(ticket)));
+    }
+
+    @Test
+    void subscribeStartsEventStream() throws Exception {
+        when(bookingService.subscribe(10L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/bookings/events")
+                        .header(USERID_HEADER, 10)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+}
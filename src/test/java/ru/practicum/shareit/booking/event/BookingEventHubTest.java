@@ -0,0 +1,165 @@
+package ru.practicum.shareit.booking.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.enums.BookingEventType;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingEventHubTest {
+
+    @Test
+    void onBookingEventSendsToOwnerAndBooker() {
+        BookingEventHub hub = new BookingEventHub(4, Duration.ofMinutes(1), Duration.ofSeconds(10), Runnable::run);
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter booker = new RecordingEmitter();
+        RecordingEmitter stranger = new RecordingEmitter();
+        hub.subscribe(1L, owner);
+        hub.subscribe(2L, booker);
+        hub.subscribe(3L, stranger);
+
+        hub.onBookingEvent(event(BookingEventType.CREATED));
+        hub.onBookingEvent(event(BookingEventType.APPROVED));
+
+        assertEquals(List.of("created", "approved"), owner.names());
+        assertEquals(List.of("created", "approved"), booker.names());
+        assertEquals(List.of(), stranger.names());
+        assertEquals(3, hub.getSubscriberCount());
+    }
+
+    @Test
+    void slowSubscriberIsDisconnected() {
+        List<Runnable> pending = new ArrayList<>();
+        BookingEventHub hub = new BookingEventHub(2, Duration.ofMinutes(1), Duration.ofSeconds(10), pending::add);
+        RecordingEmitter slow = new RecordingEmitter();
+        hub.subscribe(1L, slow);
+
+        hub.onBookingEvent(event(BookingEventType.CREATED));
+        hub.onBookingEvent(event(BookingEventType.APPROVED));
+        assertEquals(1, hub.getSubscriberCount());
+
+        hub.onBookingEvent(event(BookingEventType.REJECTED));
+
+        assertEquals(0, hub.getSubscriberCount());
+        assertEquals(1, hub.getDisconnected());
+        assertEquals(1, pending.size());
+        pending.get(0).run();
+        assertEquals(List.of(), slow.names());
+    }
+
+    @Test
+    void failedSendRemovesSubscriber() {
+        BookingEventHub hub = new BookingEventHub(4, Duration.ofMinutes(1), Duration.ofSeconds(10), Runnable::run);
+        RecordingEmitter broken = new RecordingEmitter();
+        broken.broken = true;
+        hub.subscribe(1L, broken);
+
+        hub.heartbeat();
+
+        assertEquals(0, hub.getSubscriberCount());
+        assertTrue(broken.names().isEmpty());
+    }
+
+    @Test
+    void stuckSendIsDroppedAndDoesNotHoldThePool() throws InterruptedException {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        BookingEventHub hub = new BookingEventHub(4, Duration.ofMinutes(1), Duration.ofMillis(50), pool);
+        BlockingEmitter stuck = new BlockingEmitter();
+        RecordingEmitter booker = new RecordingEmitter();
+        hub.subscribe(1L, stuck);
+        hub.subscribe(2L, booker);
+        try {
+            hub.onBookingEvent(event(BookingEventType.CREATED));
+            assertTrue(stuck.entered.await(5, TimeUnit.SECONDS));
+
+            hub.dropStuckSends();
+            assertEquals(2, hub.getSubscriberCount());
+            Thread.sleep(100);
+            hub.dropStuckSends();
+
+            assertEquals(1, hub.getSubscriberCount());
+            assertEquals(1, hub.getDisconnected());
+            assertEquals(2, pool.getCorePoolSize());
+            hub.onBookingEvent(event(BookingEventType.APPROVED));
+            await(() -> booker.names().equals(List.of("created", "approved")));
+
+            stuck.release.countDown();
+            await(() -> pool.getCorePoolSize() == 1 && stuck.completed);
+            assertEquals(1, pool.getMaximumPoolSize());
+        } finally {
+            stuck.release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static BookingEvent event(BookingEventType type) {
+        return new BookingEvent(type, 1L, 2L, BookingInfoDto.builder()
+                .id(10L)
+                .status(BookingStatus.WAITING)
+                .build());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .filter(data -> data.startsWith("event:"))
+                    .forEach(data -> events.add(data.substring("event:".length(), data.indexOf('\n'))));
+        }
+
+        private List<String> names() {
+            return events;
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
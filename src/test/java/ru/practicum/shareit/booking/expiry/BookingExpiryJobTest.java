@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryJobTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingExpiryJob bookingExpiryJob;
+
+    @BeforeEach
+    void setUp() {
+        bookingExpiryJob = new BookingExpiryJob(bookingRepository, bookingIntervalIndex, transactionTemplate, 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(bookingRepository.updateStatusIn(anyCollection(), eq(BookingStatus.WAITING),
+                eq(BookingStatus.CANCELED))).thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+    }
+
+    @Test
+    void expireStaleBookingsRunsBatchesUntilShortOne() {
+        List<BookingItemView> first = List.of(view(1L, 10L), view(2L, 10L));
+        List<BookingItemView> second = List.of(view(3L, 20L));
+        when(bookingRepository.lockStartedBookings(eq(BookingStatus.WAITING), any(LocalDateTime.class), any()))
+                .thenReturn(first)
+                .thenReturn(second);
+
+        bookingExpiryJob.expireStaleBookings();
+
+        verify(bookingRepository, times(2)).lockStartedBookings(eq(BookingStatus.WAITING), any(LocalDateTime.class),
+                eq(PageRequest.of(0, 2)));
+        verify(bookingRepository).updateStatusIn(List.of(1L, 2L), BookingStatus.WAITING, BookingStatus.CANCELED);
+        verify(bookingRepository).updateStatusIn(List.of(3L), BookingStatus.WAITING, BookingStatus.CANCELED);
+        verify(bookingIntervalIndex).release(10L, 1L);
+        verify(bookingIntervalIndex).release(10L, 2L);
+        verify(bookingIntervalIndex).release(20L, 3L);
+    }
+
+    @Test
+    void expireStaleBookingsStopsOnEmptyBatch() {
+        List<BookingItemView> first = List.of(view(1L, 10L), view(2L, 10L));
+        when(bookingRepository.lockStartedBookings(eq(BookingStatus.WAITING), any(LocalDateTime.class), any()))
+                .thenReturn(first)
+                .thenReturn(List.of());
+
+        bookingExpiryJob.expireStaleBookings();
+
+        verify(bookingRepository, times(2)).lockStartedBookings(eq(BookingStatus.WAITING), any(LocalDateTime.class),
+                eq(PageRequest.of(0, 2)));
+        verify(bookingRepository, times(1)).updateStatusIn(anyCollection(), any(), any());
+    }
+
+    private static BookingItemView view(Long id, Long itemId) {
+        BookingItemView view = mock(BookingItemView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getItemId()).thenReturn(itemId);
+        return view;
+    }
+}
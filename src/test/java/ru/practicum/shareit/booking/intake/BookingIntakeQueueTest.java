@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.intake;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.enums.BookingTicketStatus;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.exception.BookingIntakeFullException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
+import ru.practicum.shareit.item.stats.ItemStatsRecorder;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class BookingIntakeQueueTest {
+
+    @Mock
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private ItemResponseCache itemResponseCache;
+
+    @Mock
+    private ItemStatsRecorder itemStatsRecorder;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingIntakeQueue queue;
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    private final User booker = User.builder().id(1L).name("booker").build();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        queue = new BookingIntakeQueue(bookingBatchRepository, bookingIntervalIndex, itemResponseCache,
+                itemStatsRecorder, eventPublisher, transactionTemplate, 3, 10, 100);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(bookingBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setId(ids.incrementAndGet()));
+            return bookings;
+        });
+    }
+
+    @Test
+    void drainSavesBatchInOneTransactionAndRejectsOverlaps() throws InterruptedException {
+        BookingTicketDto first = queue.submit(booking(10L, 0));
+        BookingTicketDto overlapping = queue.submit(booking(10L, 1));
+        BookingTicketDto other = queue.submit(booking(20L, 0));
+        assertEquals(BookingTicketStatus.PENDING, queue.getTicket(1L, first.getId()).orElseThrow().getStatus());
+
+        assertEquals(3, queue.drain(0));
+
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(bookingBatchRepository, times(1)).saveAll(anyList());
+        verify(bookingIntervalIndex, times(2)).reserve(any());
+        assertEquals(BookingTicketStatus.CREATED, queue.getTicket(1L, first.getId()).orElseThrow().getStatus());
+        assertEquals(1L, queue.getTicket(1L, first.getId()).orElseThrow().getBookingId());
+        assertEquals(BookingTicketStatus.FAILED, queue.getTicket(1L, overlapping.getId()).orElseThrow().getStatus());
+        assertEquals(BookingTicketStatus.CREATED, queue.getTicket(1L, other.getId()).orElseThrow().getStatus());
+        assertTrue(queue.getTicket(2L, first.getId()).isEmpty());
+    }
+
+    @Test
+    void drainFallsBackToSingleRowsWhenBatchFails() throws InterruptedException {
+        BookingTicketDto first = queue.submit(booking(10L, 0));
+        BookingTicketDto second = queue.submit(booking(20L, 0));
+        doThrow(new BookingConflictException("Вещь уже забронирована на это время."))
+                .when(bookingIntervalIndex).acquire(eq(20L), any(), any());
+        when(bookingBatchRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"))
+                .thenAnswer(invocation -> {
+                    List<Booking> bookings = invocation.getArgument(0);
+                    bookings.forEach(booking -> booking.setId(ids.incrementAndGet()));
+                    return bookings;
+                });
+
+        queue.drain(0);
+
+        assertEquals(BookingTicketStatus.CREATED, queue.getTicket(1L, first.getId()).orElseThrow().getStatus());
+        assertEquals(BookingTicketStatus.FAILED, queue.getTicket(1L, second.getId()).orElseThrow().getStatus());
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+    }
+
+    @Test
+    void rowRejectedByDatabaseConstraintFailsAsConflict() throws InterruptedException {
+        BookingTicketDto first = queue.submit(booking(10L, 0));
+        BookingTicketDto second = queue.submit(booking(20L, 0));
+        BookingTicketDto third = queue.submit(booking(30L, 0));
+        when(bookingBatchRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"))
+                .thenAnswer(invocation -> {
+                    List<Booking> bookings = invocation.getArgument(0);
+                    bookings.forEach(booking -> booking.setId(ids.incrementAndGet()));
+                    return bookings;
+                })
+                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        queue.drain(0);
+
+        assertEquals(BookingTicketStatus.CREATED, queue.getTicket(1L, first.getId()).orElseThrow().getStatus());
+        BookingTicketDto conflict = queue.getTicket(1L, second.getId()).orElseThrow();
+        assertEquals(BookingTicketStatus.FAILED, conflict.getStatus());
+        assertEquals("Вещь уже забронирована на это время.", conflict.getError());
+        assertEquals("Не удалось сохранить бронирование.",
+                queue.getTicket(1L, third.getId()).orElseThrow().getError());
+    }
+
+    @Test
+    void submitFailsWhenQueueIsFull() {
+        queue.submit(booking(10L, 0));
+        queue.submit(booking(10L, 1));
+        queue.submit(booking(10L, 2));
+
+        assertThrows(BookingIntakeFullException.class, () -> queue.submit(booking(10L, 3)));
+    }
+
+    private Booking booking(Long itemId, int day) {
+        return Booking.builder()
+                .item(Item.builder().id(itemId).name("item").build())
+                .booker(booker)
+                .ownerId(2L)
+                .start(start.plusDays(day))
+                .end(start.plusDays(day).plusHours(36))
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+}
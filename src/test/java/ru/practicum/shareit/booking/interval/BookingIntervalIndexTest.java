@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex index;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, 2);
+        item = Item.builder().id(1L).build();
+        start = LocalDateTime.now().plusDays(1);
+        when(bookingRepository.findAllByItem_IdAndStatusInAndEndIsAfter(anyLong(), any(), any()))
+                .thenReturn(List.of(booking(1L, 0, 2)));
+        when(bookingRepository.existsByIdAndStatusIn(anyLong(), any())).thenReturn(true);
+    }
+
+    @Test
+    void loadsItemOnceAndRejectsOverlaps() {
+        assertThrows(BookingConflictException.class, () -> index.reserve(booking(2L, 1, 3)));
+        assertDoesNotThrow(() -> index.reserve(booking(3L, 2, 4)));
+        assertThrows(BookingConflictException.class, () -> index.reserve(booking(4L, 3, 5)));
+        assertDoesNotThrow(() -> index.reserve(booking(1L, 0, 1)));
+
+        verify(bookingRepository, times(1))
+                .findAllByItem_IdAndStatusInAndEndIsAfter(eq(1L), eq(BookingIntervalIndex.BLOCKING_STATUSES), any());
+    }
+
+    @Test
+    void releaseFreesInterval() {
+        index.reserve(booking(2L, 4, 5));
+        index.release(booking(1L, 0, 2));
+
+        assertDoesNotThrow(() -> index.reserve(booking(3L, 1, 3)));
+        assertThrows(BookingConflictException.class, () -> index.reserve(booking(4L, 0, 2)));
+    }
+
+    @Test
+    void staleIntervalIsDroppedAfterDatabaseCheck() {
+        when(bookingRepository.existsByIdAndStatusIn(eq(1L), any())).thenReturn(false);
+
+        assertDoesNotThrow(() -> index.reserve(booking(2L, 1, 3)));
+        assertThrows(BookingConflictException.class, () -> index.reserve(booking(3L, 0, 2)));
+    }
+
+    @Test
+    void lockIsHeldUntilTransactionCompletes() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.acquire(1L, start.plusDays(2), start.plusDays(4));
+            index.reserve(booking(2L, 2, 4));
+
+            Thread other = new Thread(() -> index.reserve(booking(3L, 5, 6)));
+            other.start();
+            other.join(200);
+            assertTrue(other.isAlive());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            other.join(5000);
+            assertFalse(other.isAlive());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void acquireRejectsBusyInterval() {
+        assertThrows(BookingConflictException.class, () -> index.acquire(1L, start.plusDays(1), start.plusDays(3)));
+        assertDoesNotThrow(() -> index.acquire(1L, start.plusDays(2), start.plusDays(3)));
+    }
+
+    @Test
+    void rollbackFreesInterval() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.reserve(booking(2L, 2, 4));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertDoesNotThrow(() -> index.reserve(booking(3L, 2, 4)));
+    }
+
+    @Test
+    void evictedItemsAreReloaded() {
+        index.reserve(booking(2L, 2, 4));
+        index.reserve(booking(5L, 2, 4, Item.builder().id(2L).build()));
+        index.reserve(booking(6L, 2, 4, Item.builder().id(3L).build()));
+
+        assertDoesNotThrow(() -> index.reserve(booking(3L, 2, 4)));
+        verify(bookingRepository, times(2))
+                .findAllByItem_IdAndStatusInAndEndIsAfter(eq(1L), any(), any());
+    }
+
+    private Booking booking(Long id, int startDay, int endDay) {
+        return booking(id, startDay, endDay, item);
+    }
+
+    private Booking booking(Long id, int startDay, int endDay, Item bookedItem) {
+        return Booking.builder()
+                .id(id)
+                .start(start.plusDays(startDay))
+                .end(start.plusDays(endDay))
+                .item(bookedItem)
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookingIntervalTreeTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void findOverlap() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.put(1L, at(10), at(20));
+        tree.put(2L, at(30), at(40));
+
+        assertEquals(1L, tree.findOverlap(at(15), at(16), null));
+        assertEquals(2L, tree.findOverlap(at(25), at(35), null));
+        assertEquals(1L, tree.findOverlap(at(0), at(50), null));
+        assertNull(tree.findOverlap(at(20), at(30), null));
+        assertNull(tree.findOverlap(at(0), at(10), null));
+        assertNull(tree.findOverlap(at(40), at(45), null));
+    }
+
+    @Test
+    void excludeAndRemove() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.put(1L, at(10), at(20));
+        tree.put(2L, at(12), at(14));
+
+        assertEquals(2L, tree.findOverlap(at(13), at(15), 1L));
+
+        tree.remove(2L);
+        assertNull(tree.findOverlap(at(13), at(15), 1L));
+
+        tree.put(1L, at(50), at(60));
+        assertEquals(1, tree.size());
+        assertNull(tree.findOverlap(at(10), at(20), null));
+        assertEquals(1L, tree.findOverlap(at(55), at(56), null));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        BookingIntervalTree tree = new BookingIntervalTree();
+        Map<Long, long[]> intervals = new HashMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            long start = random.nextInt(100_000);
+            long[] interval = {start, start + 1 + random.nextInt(50)};
+            intervals.put(id, interval);
+            tree.put(id, at(interval[0]), at(interval[1]));
+            if (random.nextInt(3) == 0) {
+                long removed = 1 + random.nextInt((int) id);
+                intervals.remove(removed);
+                tree.remove(removed);
+            }
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(50);
+            Long overlap = tree.findOverlap(at(start), at(end), null);
+            boolean expected = intervals.values().stream()
+                    .anyMatch(interval -> interval[0] < end && start < interval[1]);
+            assertEquals(expected, overlap != null);
+            if (overlap != null) {
+                long[] interval = intervals.get(overlap);
+                assertEquals(true, interval[0] < end && start < interval[1]);
+            }
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+
+    private LocalDateTime at(long minutes) {
+        return base.plusMinutes(minutes);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@DataJpaTest
+@Import(BookingBatchRepository.class)
+class BookingBatchRepositoryTest {
+
+    @Autowired
+    BookingBatchRepository bookingBatchRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void saveAllTest() {
+        User owner = userRepository.save(new User(0L, "owner", "owner@mail.ru"));
+        User booker = userRepository.save(new User(0L, "booker", "booker@mail.ru"));
+        Item item = itemRepository.save(new Item(null, "testName", "testDescription", true, owner, null));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        List<Booking> saved = bookingBatchRepository.saveAll(List.of(
+                new Booking(null, start, start.plusDays(1), item, booker, owner.getId(), BookingStatus.WAITING, null,
+                        null),
+                new Booking(null, start.plusDays(2), start.plusDays(3), item, booker, owner.getId(),
+                        BookingStatus.WAITING, null, null)));
+
+        Assertions.assertEquals(2, saved.size());
+        Assertions.assertTrue(saved.get(0).getId() < saved.get(1).getId());
+        Booking second = bookingRepository.findById(saved.get(1).getId()).orElseThrow();
+        Assertions.assertEquals(start.plusDays(2), second.getStart());
+        Assertions.assertEquals(item.getId(), second.getItem().getId());
+        Assertions.assertEquals(booker.getId(), second.getBooker().getId());
+        Assertions.assertEquals(owner.getId(), second.getOwnerId());
+        Assertions.assertEquals(BookingStatus.WAITING, second.getStatus());
+        Assertions.assertEquals(0L, second.getVersion());
+        Assertions.assertNotNull(second.getCreated());
+    }
+}
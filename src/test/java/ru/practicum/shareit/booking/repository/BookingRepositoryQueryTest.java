@@ -0,0 +1,275 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingItemView;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingRepositoryQueryTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingArchiveRepository bookingArchiveRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private User owner;
+    private User booker;
+    private Item item1;
+    private Item item2;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().name("owner").email("owner@email.com").build());
+        booker = userRepository.save(User.builder().name("booker").email("booker@email.com").build());
+        item1 = itemRepository.save(new Item(null, "item1", "description1", true, owner, null));
+        item2 = itemRepository.save(new Item(null, "item2", "description2", true, owner, null));
+    }
+
+    @Test
+    void findLastAndNextBookings() {
+        save(item1, now.minusDays(10), BookingStatus.APPROVED);
+        Booking last1 = save(item1, now.minusDays(5), BookingStatus.APPROVED);
+        save(item1, now.minusDays(1), BookingStatus.REJECTED);
+        Booking next1 = save(item1, now.plusDays(1), BookingStatus.WAITING);
+        save(item1, now.plusDays(3), BookingStatus.APPROVED);
+        Booking next2 = save(item2, now.plusDays(2), BookingStatus.APPROVED);
+
+        List<BookingItemView> result = bookingRepository.findLastAndNextBookings(
+                List.of(item1.getId(), item2.getId()), now);
+
+        assertEquals(List.of(last1.getId(), next1.getId(), next2.getId()), result.stream()
+                .sorted(Comparator.comparing(BookingItemView::getItemId)
+                        .thenComparing(BookingItemView::getStartDate))
+                .map(BookingItemView::getId)
+                .collect(Collectors.toList()));
+
+        BookingItemView last = result.stream()
+                .filter(booking -> booking.getId().equals(last1.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(item1.getId(), last.getItemId());
+        assertEquals(booker.getId(), last.getBookerId());
+        assertEquals(last1.getStart(), last.getStartDate());
+        assertEquals(last1.getEnd(), last.getEndDate());
+    }
+
+    @Test
+    void findPageByStateWalksKeysetInStartOrder() {
+        Booking past = save(item1, now.minusDays(5), BookingStatus.APPROVED);
+        Booking current = save(item1, now.minusHours(2), BookingStatus.APPROVED);
+        Booking rejected = save(item2, now.plusDays(1), BookingStatus.REJECTED);
+        Booking waiting1 = save(item1, now.plusDays(2), BookingStatus.WAITING);
+        Booking waiting2 = save(item2, now.plusDays(2), BookingStatus.WAITING);
+
+        assertEquals(List.of(waiting2.getId(), waiting1.getId(), rejected.getId(), current.getId(), past.getId()),
+                ids(page(booker.getId(), false, BookingState.ALL).build()));
+        assertEquals(List.of(past.getId()), ids(page(booker.getId(), false, BookingState.PAST).build()));
+        assertEquals(List.of(current.getId()), ids(page(owner.getId(), true, BookingState.CURRENT).build()));
+        assertEquals(List.of(waiting2.getId(), waiting1.getId(), rejected.getId()),
+                ids(page(owner.getId(), true, BookingState.FUTURE).build()));
+        assertEquals(List.of(waiting2.getId(), waiting1.getId()),
+                ids(page(owner.getId(), true, BookingState.WAITING).build()));
+        assertEquals(List.of(rejected.getId()), ids(page(booker.getId(), false, BookingState.REJECTED).build()));
+        assertEquals(List.of(), ids(page(booker.getId(), true, BookingState.ALL).build()));
+
+        assertEquals(List.of(waiting1.getId(), rejected.getId()), ids(page(owner.getId(), true, BookingState.ALL)
+                .afterStart(waiting2.getStart())
+                .afterId(waiting2.getId())
+                .limit(2)
+                .build()));
+        assertEquals(List.of(rejected.getId(), current.getId()), ids(page(booker.getId(), false, BookingState.ALL)
+                .offset(2)
+                .limit(2)
+                .build()));
+    }
+
+    @Test
+    void updateStatusOnlyDecidesWaitingBookingOfOwner() {
+        Booking booking = save(item1, now.plusDays(1), BookingStatus.WAITING);
+
+        assertEquals(0, bookingRepository.updateStatus(booking.getId(), booker.getId(), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        assertEquals(1, bookingRepository.updateStatus(booking.getId(), owner.getId(), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        assertEquals(0, bookingRepository.updateStatus(booking.getId(), owner.getId(), BookingStatus.WAITING,
+                BookingStatus.REJECTED));
+
+        Booking updated = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertEquals(BookingStatus.APPROVED, updated.getStatus());
+        assertEquals(booking.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void staleWaitingBookingsAreLockedAndCanceledOnce() {
+        Booking stale1 = save(item1, now.minusDays(2), BookingStatus.WAITING);
+        Booking stale2 = save(item2, now.minusDays(1), BookingStatus.WAITING);
+        save(item1, now.minusDays(3), BookingStatus.APPROVED);
+        save(item1, now.plusDays(1), BookingStatus.WAITING);
+
+        List<BookingItemView> stale = bookingRepository.lockStartedBookings(BookingStatus.WAITING, now, PageRequest.of(0, 10));
+        assertEquals(List.of(stale1.getId(), stale2.getId()), stale.stream()
+                .map(BookingItemView::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(item1.getId(), item2.getId()), stale.stream()
+                .map(BookingItemView::getItemId)
+                .collect(Collectors.toList()));
+        assertEquals(1, bookingRepository.lockStartedBookings(BookingStatus.WAITING, now, PageRequest.of(0, 1)).size());
+
+        List<Long> ids = List.of(stale1.getId(), stale2.getId());
+        assertEquals(2, bookingRepository.updateStatusIn(ids, BookingStatus.WAITING, BookingStatus.CANCELED));
+        assertEquals(0, bookingRepository.updateStatusIn(ids, BookingStatus.WAITING, BookingStatus.CANCELED));
+        assertEquals(List.of(), bookingRepository.lockStartedBookings(BookingStatus.WAITING, now, PageRequest.of(0, 10)));
+
+        Booking canceled = bookingRepository.findById(stale1.getId()).orElseThrow();
+        assertEquals(BookingStatus.CANCELED, canceled.getStatus());
+        assertEquals(stale1.getVersion() + 1, canceled.getVersion());
+    }
+
+    @Test
+    void lockOwnerBookingsSkipsForeignBookings() {
+        Booking waiting = save(item1, now.plusDays(1), BookingStatus.WAITING);
+        Booking approved = save(item2, now.plusDays(2), BookingStatus.APPROVED);
+
+        List<BookingStatusView> statuses = bookingRepository.lockOwnerBookings(
+                List.of(waiting.getId(), approved.getId(), approved.getId() + 100), owner.getId());
+        assertEquals(List.of(waiting.getId(), approved.getId()), statuses.stream()
+                .map(BookingStatusView::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(BookingStatus.WAITING, BookingStatus.APPROVED), statuses.stream()
+                .map(BookingStatusView::getStatus)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), bookingRepository.lockOwnerBookings(List.of(waiting.getId()), booker.getId()));
+
+        List<Booking> bookings = bookingRepository.findAllWithItemAndBookerByIdIn(List.of(waiting.getId()));
+        assertEquals(1, bookings.size());
+        assertEquals(item1.getName(), bookings.get(0).getItem().getName());
+        assertEquals(booker.getName(), bookings.get(0).getBooker().getName());
+    }
+
+    @Test
+    void archivedBookingsAreReadOnlyWhenPageReachesThem() {
+        Booking archived1 = save(item1, now.minusDays(400), BookingStatus.APPROVED);
+        Booking archived2 = save(item2, now.minusDays(300), BookingStatus.REJECTED);
+        Booking past = save(item1, now.minusDays(5), BookingStatus.APPROVED);
+        Booking future = save(item2, now.plusDays(2), BookingStatus.WAITING);
+
+        List<Long> ended = bookingRepository.lockEndedBookings(now.minusDays(180), PageRequest.of(0, 10));
+        assertEquals(List.of(archived1.getId(), archived2.getId()), ended);
+        assertEquals(2, bookingArchiveRepository.copyFromBookings(ended));
+        assertEquals(2, bookingRepository.deleteAllByIdIn(ended));
+        assertFalse(bookingRepository.existsById(archived1.getId()));
+
+        assertEquals(List.of(future.getId(), past.getId(), archived2.getId(), archived1.getId()),
+                ids(page(booker.getId(), false, BookingState.ALL).build()));
+        assertEquals(List.of(future.getId(), past.getId()),
+                ids(page(booker.getId(), false, BookingState.ALL).limit(2).build()));
+        assertEquals(List.of(archived2.getId(), archived1.getId()), ids(page(owner.getId(), true, BookingState.ALL)
+                .afterStart(past.getStart())
+                .afterId(past.getId())
+                .build()));
+        assertEquals(List.of(past.getId(), archived2.getId()), ids(page(booker.getId(), false, BookingState.ALL)
+                .offset(1)
+                .limit(2)
+                .build()));
+        assertEquals(List.of(past.getId(), archived2.getId(), archived1.getId()),
+                ids(page(booker.getId(), false, BookingState.PAST).build()));
+        assertEquals(List.of(archived2.getId()), ids(page(owner.getId(), true, BookingState.REJECTED).build()));
+        assertEquals(List.of(future.getId()), ids(page(owner.getId(), true, BookingState.FUTURE).build()));
+
+        Booking archivedBooking = bookingRepository.findPage(page(booker.getId(), false, BookingState.PAST)
+                .build()).get(2);
+        assertEquals(item1.getName(), archivedBooking.getItem().getName());
+        assertEquals(archived1.getEnd(), archivedBooking.getEnd());
+
+        List<BookingItemView> last = bookingArchiveRepository.findLastBookings(List.of(item1.getId(), item2.getId()));
+        assertEquals(List.of(archived1.getId()), last.stream()
+                .map(BookingItemView::getId)
+                .collect(Collectors.toList()));
+        assertTrue(bookingArchiveRepository.existsByBooker_IdAndItem_Id(booker.getId(), item2.getId()));
+        assertFalse(bookingArchiveRepository.existsByBooker_IdAndItem_Id(owner.getId(), item2.getId()));
+    }
+
+    @Test
+    void transferredItemBookingsAreDecidedByNewOwner() {
+        Booking archived = save(item1, now.minusDays(400), BookingStatus.APPROVED);
+        Booking waiting = save(item1, now.plusDays(1), BookingStatus.WAITING);
+        Booking foreign = save(item2, now.plusDays(2), BookingStatus.WAITING);
+        List<Long> ended = List.of(archived.getId());
+        bookingArchiveRepository.copyFromBookings(ended);
+        bookingRepository.deleteAllByIdIn(ended);
+        User newOwner = userRepository.save(User.builder().name("newOwner").email("newOwner@email.com").build());
+
+        item1.setOwner(newOwner);
+        itemRepository.save(item1);
+        assertEquals(1, bookingRepository.updateOwnerByItemId(item1.getId(), newOwner.getId()));
+        assertEquals(1, bookingArchiveRepository.updateOwnerByItemId(item1.getId(), newOwner.getId()));
+
+        assertEquals(newOwner.getId(), itemRepository.findById(item1.getId()).orElseThrow().getOwner().getId());
+        assertEquals(0, bookingRepository.updateStatus(waiting.getId(), owner.getId(), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        assertEquals(List.of(), bookingRepository.lockOwnerBookings(List.of(waiting.getId()), owner.getId()));
+        assertEquals(1, bookingRepository.updateStatus(waiting.getId(), newOwner.getId(), BookingStatus.WAITING,
+                BookingStatus.APPROVED));
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(waiting.getId()).orElseThrow().getStatus());
+        assertEquals(List.of(waiting.getId(), archived.getId()),
+                ids(page(newOwner.getId(), true, BookingState.ALL).build()));
+        assertEquals(List.of(foreign.getId()), ids(page(owner.getId(), true, BookingState.ALL).build()));
+    }
+
+    private BookingPageQuery.BookingPageQueryBuilder page(Long userId, boolean owner, BookingState state) {
+        return BookingPageQuery.builder()
+                .userId(userId)
+                .owner(owner)
+                .state(state)
+                .now(now)
+                .limit(10);
+    }
+
+    private List<Long> ids(BookingPageQuery query) {
+        return bookingRepository.findPage(query).stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Booking save(Item item, LocalDateTime start, BookingStatus status) {
+        return bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .ownerId(item.getOwner().getId())
+                .start(start)
+                .end(start.plusHours(12))
+                .status(status)
+                .build());
+    }
+}
@@ -4,27 +4,45 @@ package ru.practicum.shareit.booking.repository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.intake.BookingIntakeQueue;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.exception.InvalidEntityException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.stats.ItemStatsRecorder;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -37,7 +55,28 @@ public class BookingRepositoryTest {
     private BookingRepository bookingRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private BookingArchiveRepository bookingArchiveRepository;
+
+    @Mock
+    private ItemStatsRecorder itemStatsRecorder;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ItemResponseCache itemResponseCache;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private BookingEventHub bookingEventHub;
+
+    @Mock
+    private BookingIntakeQueue bookingIntakeQueue;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private Booking booking;
     private User user;
@@ -72,101 +111,66 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByBookerIdOrderByStartDescTest() {
+    void getBookingPagesEveryStateInDatabase() {
         BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "ALL", 0, 10), List.of(bookingInfoDto));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findPage(any())).thenReturn(List.of(booking));
+
+        for (BookingState state : BookingState.values()) {
+            KeysetPage<BookingInfoDto> page = bookingService.getBooking(user.getId(), state.name(), null, 20, 10);
+            assertEquals(List.of(bookingInfoDto), page.getItems());
+            assertNull(page.getNextCursor());
+        }
+
+        ArgumentCaptor<BookingPageQuery> captor = ArgumentCaptor.forClass(BookingPageQuery.class);
+        verify(bookingRepository, times(BookingState.values().length)).findPage(captor.capture());
+        assertEquals(List.of(BookingState.values()), captor.getAllValues().stream()
+                .map(BookingPageQuery::getState)
+                .collect(Collectors.toList()));
+        BookingPageQuery query = captor.getValue();
+        assertEquals(user.getId(), query.getUserId());
+        assertFalse(query.isOwner());
+        assertEquals(20, query.getOffset());
+        assertEquals(11, query.getLimit());
+        assertNull(query.getAfterId());
     }
 
     @Test
-    void findAllByBookerIdAndEndIsBeforeTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByBookerIdAndEndIsBefore(anyLong(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "PAST", 0, 10), List.of(bookingInfoDto));
-    }
-
-    @Test
-    void findAllByBookerIdAndStartIsAfterTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByBookerIdAndStartIsAfter(anyLong(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "FUTURE", 0, 10), List.of(bookingInfoDto));
-    }
-
-    @Test
-    void findAllByBookerIdAndStartIsBeforeAndEndIsAfterTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "CURRENT", 0, 10), List.of(bookingInfoDto));
-    }
-
-    @Test
-    void findAllByBookerIdAndStatusTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(BookingStatus.class))).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "WAITING", 0, 10), List.of(bookingInfoDto));
-
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(BookingStatus.class))).thenReturn(List.of(booking));
-        assertEquals(bookingService.getBooking(user.getId(), "REJECTED", 0, 10), List.of(bookingInfoDto));
-    }
-
-    @Test
-    void findAllByItem_Owner_IdOrderByStartDescTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByItem_Owner_IdOrderByStartDesc(anyLong(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "ALL", 0, 10), List.of(bookingInfoDto));
-    }
-
-    @Test
-    void findAllByItem_Owner_IdAndEndIsBeforeTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByItem_Owner_IdAndEndIsBefore(anyLong(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "PAST", 0, 10), List.of(bookingInfoDto));
-    }
+    void getOwnerBookingReturnsCursorOfLastRow() {
+        Booking second = Booking.builder()
+                .id(2L)
+                .start(booking.getStart().minusHours(1))
+                .end(booking.getEnd())
+                .item(booking.getItem())
+                .booker(user)
+                .status(BookingStatus.WAITING)
+                .build();
 
-    @Test
-    void findAllByItem_Owner_IdAndStartIsAfterTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findPage(any())).thenReturn(List.of(booking, second));
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        KeysetPage<BookingInfoDto> page = bookingService.getOwnerBooking(user.getId(), "WAITING", null, 0, 1);
+        assertEquals(List.of(BookingMapper.toBookingInfoDto(booking)), page.getItems());
+        assertEquals(KeysetCursor.encode(booking.getStart(), booking.getId()), page.getNextCursor());
 
-        when(bookingRepository.findAllByItem_Owner_IdAndStartIsAfter(anyLong(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "FUTURE", 0, 10), List.of(bookingInfoDto));
+        bookingService.getOwnerBooking(user.getId(), "WAITING", page.getNextCursor(), 0, 1);
 
-        when(bookingRepository.findAllByItem_Owner_IdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), any())).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "CURRENT", 0, 10), List.of(bookingInfoDto));
+        ArgumentCaptor<BookingPageQuery> captor = ArgumentCaptor.forClass(BookingPageQuery.class);
+        verify(bookingRepository, times(2)).findPage(captor.capture());
+        BookingPageQuery next = captor.getValue();
+        assertTrue(next.isOwner());
+        assertEquals(BookingState.WAITING, next.getState());
+        assertEquals(booking.getStart(), next.getAfterStart());
+        assertEquals(booking.getId(), next.getAfterId());
+        assertEquals(0, next.getOffset());
     }
 
     @Test
-    void findAllByItem_Owner_IdAndStatusTest() {
-        BookingInfoDto bookingInfoDto = BookingMapper.toBookingInfoDto(booking);
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
-        when(bookingRepository.findAllByItem_Owner_IdAndStatus(anyLong(), any(BookingStatus.class))).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "WAITING", 0, 10), List.of(bookingInfoDto));
+    void invalidCursor() {
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
 
-        when(bookingRepository.findAllByItem_Owner_IdAndStatus(anyLong(), any(BookingStatus.class))).thenReturn(List.of(booking));
-        assertEquals(bookingService.getOwnerBooking(user.getId(), "REJECTED", 0, 10), List.of(bookingInfoDto));
+        assertThrows(InvalidEntityException.class, () -> bookingService.getBooking(user.getId(), "ALL",
+                KeysetCursor.encode("yesterday", 1L), 0, 10));
     }
 }
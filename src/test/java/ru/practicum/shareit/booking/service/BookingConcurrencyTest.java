@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Параллельные бронирования одной вещи: ни одна пара сохраненных бронирований не должна пересекаться.
+ * Пишет в лог пропускную способность, созданные строки удаляет после теста.
+ * Запуск: mvn test -Dtest=BookingConcurrencyTest -Dbenchmark=true [-Dbookings.threads=32 -Dbookings.attempts=2000]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class BookingConcurrencyTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // вещи и бронирования удаляются каскадно вместе с пользователями
+        userIds.forEach(userRepository::deleteById);
+    }
+
+    @Test
+    void concurrentBookingsOfOneItemNeverOverlap() throws Exception {
+        int threads = Integer.getInteger("bookings.threads", 8);
+        int attempts = Integer.getInteger("bookings.attempts", 100);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User owner = userRepository.save(new User(null, "owner", "concurrency-owner-" + suffix + "@mail.ru"));
+        userIds.add(owner.getId());
+        User booker = userRepository.save(new User(null, "booker", "concurrency-booker-" + suffix + "@mail.ru"));
+        userIds.add(booker.getId());
+        Item item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .owner(owner)
+                .build());
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attempts; i++) {
+                    LocalDateTime from = base.plusHours(random.nextInt(attempts * 2));
+                    BookingDto bookingDto = BookingDto.builder()
+                            .itemId(item.getId())
+                            .start(from)
+                            .end(from.plusHours(1 + random.nextInt(3)))
+                            .build();
+                    try {
+                        bookingService.addBooking(booker.getId(), bookingDto);
+                        created.incrementAndGet();
+                    } catch (BookingConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        executor.shutdown();
+
+        int total = threads * attempts;
+        log.info("Параллельные бронирования одной вещи: {} потоков, {} попыток, {} создано, {} конфликтов, "
+                        + "{} попыток/с.", threads, total, created.get(), conflicts.get(),
+                Math.round(total / (elapsedNanos / 1e9)));
+
+        List<Booking> saved = bookingRepository.findAllByItem_IdAndStatusInAndEndIsAfter(item.getId(),
+                        List.of(BookingStatus.WAITING), base.minusDays(1)).stream()
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+        assertEquals(created.get(), saved.size());
+        assertEquals(total, created.get() + conflicts.get());
+        assertFalse(saved.isEmpty());
+        for (int i = 1; i < saved.size(); i++) {
+            assertFalse(saved.get(i).getStart().isBefore(saved.get(i - 1).getEnd()),
+                    "Пересекаются бронирования " + saved.get(i - 1).getId() + " и " + saved.get(i).getId());
+        }
+    }
+}
@@ -3,32 +3,59 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInfoDto;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingTicketDto;
+import ru.practicum.shareit.booking.enums.BookingTicketStatus;
+import ru.practicum.shareit.booking.enums.BookingEventType;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.intake.BookingIntakeQueue;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.exception.BookingConflictException;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.UnknownBookingState;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.stats.ItemStatsRecorder;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -39,10 +66,29 @@ class BookingServiceTest {
     private BookingServiceImpl bookingService;
     @Mock
     private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+
     @Mock
-    private UserRepository userRepository;
+    private ItemStatsRecorder itemStatsRecorder;
+    @Mock
+    private UserCache userCache;
     @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private ItemResponseCache itemResponseCache;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private BookingEventHub bookingEventHub;
+
+    @Mock
+    private BookingIntakeQueue bookingIntakeQueue;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     private Booking booking;
     private Item item;
     private User user;
@@ -81,10 +127,23 @@ class BookingServiceTest {
         BookingDto bookingDto = BookingMapper.toBookingDto(booking);
 
         when(itemRepository.findById(bookingDto.getItemId())).thenReturn(Optional.of(item));
-        when(userRepository.findById(bookingDto.getBookerId())).thenReturn(Optional.of(user));
+        when(userCache.find(bookingDto.getBookerId())).thenReturn(Optional.of(user));
         when(bookingRepository.save(any())).thenReturn(booking);
-        when(bookingService.addBooking(1L, bookingDto))
-                .thenReturn(BookingMapper.toBookingInfoDto(booking));
+
+        assertEquals(BookingMapper.toBookingInfoDto(booking), bookingService.addBooking(1L, bookingDto));
+        verify(bookingIntervalIndex).acquire(item.getId(), bookingDto.getStart(), bookingDto.getEnd());
+        verify(bookingIntervalIndex).reserve(booking);
+        verify(itemResponseCache).evict(item.getId());
+        verify(itemStatsRecorder).recordCreated(booking);
+
+        when(bookingRepository.save(any())).thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
+        assertThrows(BookingConflictException.class, () -> bookingService.addBooking(1L, bookingDto));
+        doReturn(booking).when(bookingRepository).save(any());
+
+        doThrow(new BookingConflictException("Вещь уже забронирована на это время."))
+                .when(bookingIntervalIndex).reserve(booking);
+        assertThrows(BookingConflictException.class, () -> bookingService.addBooking(1L, bookingDto));
+        doNothing().when(bookingIntervalIndex).reserve(any());
 
         assertThrows(InvalidEntityException.class, () -> {
             BookingDto exceptionBooking = BookingMapper.toBookingDto(booking);
@@ -116,28 +175,39 @@ class BookingServiceTest {
     @Test
     void updateBookingStatusTest() {
         item.setOwner(user);
+        booking.setOwnerId(user.getId());
+        booking.setStatus(BookingStatus.APPROVED);
 
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.updateStatus(1L, 1L, BookingStatus.WAITING, BookingStatus.APPROVED)).thenReturn(1);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any())).thenReturn(booking);
-        when(bookingService.updateBookingStatus(1L, 1L, true))
-                .thenReturn(BookingMapper.toBookingInfoDto(booking));
 
+        assertEquals(BookingStatus.APPROVED, bookingService.updateBookingStatus(1L, 1L, true).getStatus());
+        verify(bookingIntervalIndex, never()).release(any());
+        verify(itemResponseCache).evict(item.getId());
+        verify(itemStatsRecorder).recordDecision(booking, BookingStatus.APPROVED);
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(BookingEventType.APPROVED, ((BookingEvent) event.getValue()).getType());
+        assertEquals(user.getId(), ((BookingEvent) event.getValue()).getOwnerId());
+
+        booking.setStatus(BookingStatus.REJECTED);
+        when(bookingRepository.updateStatus(1L, 1L, BookingStatus.WAITING, BookingStatus.REJECTED)).thenReturn(1);
+        assertEquals(BookingStatus.REJECTED, bookingService.updateBookingStatus(1L, 1L, false).getStatus());
+        verify(bookingIntervalIndex).release(booking);
+        verify(itemStatsRecorder).recordDecision(booking, BookingStatus.REJECTED);
+
+        when(bookingRepository.updateStatus(1L, 1L, BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
+        assertThrows(BookingConflictException.class, () -> bookingService.updateBookingStatus(1L, 1L, true));
+
+        when(bookingRepository.updateStatus(anyLong(), anyLong(), any(), any())).thenReturn(0);
         assertThrows(InvalidEntityException.class, () -> {
             booking.setStatus(BookingStatus.APPROVED);
             bookingService.updateBookingStatus(1L, 1L, true);
         });
 
         assertThrows(ObjectNotFoundException.class, () -> {
-            item.setOwner(User.builder()
-                    .id(2L)
-                    .build());
-            bookingService.updateBookingStatus(1L, 1L, true);
-        });
-
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
-        assertThrows(ObjectNotFoundException.class, () -> {
+            booking.setOwnerId(2L);
             bookingService.updateBookingStatus(1L, 1L, true);
         });
 
@@ -147,6 +217,65 @@ class BookingServiceTest {
         });
     }
 
+    @Test
+    void addBookingAsyncTest() {
+        BookingDto bookingDto = BookingMapper.toBookingDto(booking);
+        BookingTicketDto ticket = BookingTicketDto.builder().id("ticket").status(BookingTicketStatus.PENDING).build();
+
+        when(itemRepository.findById(bookingDto.getItemId())).thenReturn(Optional.of(item));
+        when(userCache.find(bookingDto.getBookerId())).thenReturn(Optional.of(user));
+        when(bookingIntakeQueue.submit(any())).thenReturn(ticket);
+
+        assertEquals(ticket, bookingService.addBookingAsync(1L, bookingDto));
+        ArgumentCaptor<Booking> submitted = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingIntakeQueue).submit(submitted.capture());
+        assertEquals(BookingStatus.WAITING, submitted.getValue().getStatus());
+        assertEquals(item.getOwner().getId(), submitted.getValue().getOwnerId());
+        verify(bookingIntervalIndex).acquire(item.getId(), bookingDto.getStart(), bookingDto.getEnd());
+        verify(bookingRepository, never()).save(any());
+
+        doThrow(new BookingConflictException("Вещь уже забронирована на это время."))
+                .when(bookingIntervalIndex).acquire(any(), any(), any());
+        assertThrows(BookingConflictException.class, () -> bookingService.addBookingAsync(1L, bookingDto));
+        verify(bookingIntakeQueue).submit(any());
+
+        when(bookingIntakeQueue.getTicket(1L, "ticket")).thenReturn(Optional.of(ticket));
+        assertEquals(ticket, bookingService.getTicket(1L, "ticket"));
+        assertThrows(ObjectNotFoundException.class, () -> bookingService.getTicket(2L, "ticket"));
+    }
+
+    @Test
+    void updateBookingStatusesTest() {
+        booking.setStatus(BookingStatus.REJECTED);
+        when(bookingRepository.lockOwnerBookings(any(), anyLong())).thenReturn(List.of(
+                statusView(1L, BookingStatus.WAITING),
+                statusView(2L, BookingStatus.APPROVED)));
+        when(bookingRepository.findAllWithItemAndBookerByIdIn(List.of(1L))).thenReturn(List.of(booking));
+
+        List<BookingDecisionResultDto> results = bookingService.updateBookingStatuses(2L, List.of(1L, 2L, 3L, 1L),
+                false);
+
+        assertEquals(List.of(
+                BookingDecisionResultDto.builder().id(1L).status(BookingStatus.REJECTED).build(),
+                BookingDecisionResultDto.builder().id(2L).status(BookingStatus.APPROVED)
+                        .error("Бронирование уже рассмотрено.").build(),
+                BookingDecisionResultDto.builder().id(3L).error("Бронирование не найдено.").build()), results);
+        verify(bookingRepository).lockOwnerBookings(Set.of(1L, 2L, 3L), 2L);
+        verify(bookingRepository).updateStatusIn(List.of(1L), BookingStatus.WAITING, BookingStatus.REJECTED);
+        verify(bookingIntervalIndex).release(booking);
+        verify(itemResponseCache).evict(item.getId());
+        verify(eventPublisher).publishEvent(any(Object.class));
+
+        assertThrows(InvalidEntityException.class, () -> bookingService.updateBookingStatuses(2L, List.of(), true));
+        assertThrows(InvalidEntityException.class, () -> bookingService.updateBookingStatuses(2L,
+                LongStream.rangeClosed(1, BookingServiceImpl.MAX_DECISIONS + 1).boxed().collect(Collectors.toList()),
+                true));
+
+        when(bookingRepository.updateStatusIn(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
+        assertThrows(BookingConflictException.class, () -> bookingService.updateBookingStatuses(2L, List.of(1L), true));
+    }
+
     @Test
     void getCurrentBookingTest() {
         Booking bookingTest = Booking.builder()
@@ -175,47 +304,82 @@ class BookingServiceTest {
         });
     }
 
+    @Test
+    void getCurrentBookingFallsBackToArchive() {
+        ArchivedBooking archived = ArchivedBooking.builder()
+                .id(2L)
+                .start(LocalDateTime.of(2022, Month.MAY, 25, 12, 0))
+                .end(LocalDateTime.of(2022, Month.MAY, 26, 12, 0))
+                .item(item)
+                .booker(user)
+                .status(BookingStatus.APPROVED)
+                .build();
+
+        when(bookingRepository.findById(2L)).thenReturn(Optional.empty());
+        when(bookingArchiveRepository.findById(2L)).thenReturn(Optional.of(archived));
+
+        BookingInfoDto result = bookingService.getCurrentBooking(1L, 2L);
+
+        assertEquals(2L, result.getId());
+        assertEquals(BookingStatus.APPROVED, result.getStatus());
+        assertEquals(archived.getStart(), result.getStart());
+    }
+
     @Test
     void getBookingTest() {
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
 
         assertThrows(UnknownBookingState.class, () -> {
-            bookingService.getBooking(user.getId(), "TEST", 0, 10);
+            bookingService.getBooking(user.getId(), "TEST", null, 0, 10);
         });
 
         assertThrows(InvalidEntityException.class, () -> {
-            bookingService.getBooking(user.getId(), "TEST", 0, -10);
+            bookingService.getBooking(user.getId(), "TEST", null, 0, -10);
         });
 
         assertThrows(InvalidEntityException.class, () -> {
-            bookingService.getBooking(user.getId(), "TEST", -1, 10);
+            bookingService.getBooking(user.getId(), "TEST", null, -1, 10);
         });
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
         assertThrows(ObjectNotFoundException.class, () -> {
-            bookingService.getBooking(user.getId(), "ALL", 0, 10);
+            bookingService.getBooking(user.getId(), "ALL", null, 0, 10);
         });
     }
 
     @Test
     void getOwnerBookingTest() {
         assertThrows(UnknownBookingState.class, () -> {
-            bookingService.getOwnerBooking(user.getId(), "TEST", 0, 10);
+            bookingService.getOwnerBooking(user.getId(), "TEST", null, 0, 10);
         });
 
         assertThrows(InvalidEntityException.class, () -> {
-            bookingService.getOwnerBooking(user.getId(), "TEST", 0, -10);
+            bookingService.getOwnerBooking(user.getId(), "TEST", null, 0, -10);
         });
 
         assertThrows(InvalidEntityException.class, () -> {
-            bookingService.getOwnerBooking(user.getId(), "TEST", -1, 10);
+            bookingService.getOwnerBooking(user.getId(), "TEST", null, -1, 10);
         });
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> {
-            bookingService.getOwnerBooking(user.getId(), "ALL", 0, 10);
+            bookingService.getOwnerBooking(user.getId(), "ALL", null, 0, 10);
         });
     }
-}
\ No newline at end of file
+
+    private static BookingStatusView statusView(Long id, BookingStatus status) {
+        return new BookingStatusView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BookingStatus getStatus() {
+                return status;
+            }
+        };
+    }
+}
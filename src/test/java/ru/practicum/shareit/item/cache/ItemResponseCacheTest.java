@@ -0,0 +1,100 @@
+package ru.practicum.shareit.item.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.item.dto.ItemInfoDto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private ItemResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ItemResponseCache(objectMapper, 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void ownerAndOtherUsersHaveSeparateEntries() throws Exception {
+        ItemInfoDto item = item(1L, null);
+
+        cache.get(2L, 1L, loader(item));
+        cache.get(3L, 1L, loader(item));
+        assertEquals(1, loads.get());
+
+        item.setLastBooking(BookingItemDto.builder().id(5L).build());
+        byte[] ownerView = cache.get(1L, 1L, loader(item));
+        assertEquals(2, loads.get());
+        assertEquals(5L, objectMapper.readTree(ownerView).get("lastBooking").get("id").asLong());
+
+        byte[] otherView = cache.get(2L, 1L, loader(item));
+        assertTrue(objectMapper.readTree(otherView).get("lastBooking").isNull());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict() {
+        cache.get(2L, 1L, loader(item(1L, null)));
+        cache.evict(1L);
+        cache.get(2L, 1L, loader(item(1L, null)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void ownerViewExpiresWhenNextBookingStarts() {
+        ItemInfoDto item = item(1L, LocalDateTime.now().minusSeconds(1));
+
+        cache.get(1L, 1L, loader(item));
+        cache.get(1L, 1L, loader(item));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedWhenFull() {
+        for (long itemId = 1; itemId <= 50; itemId++) {
+            cache.get(2L, itemId, loader(item(itemId, null)));
+        }
+        assertTrue(cache.getUsedBytes() <= 1024);
+
+        cache.get(2L, 50L, loader(item(50L, null)));
+        assertEquals(50, loads.get());
+
+        cache.get(2L, 1L, loader(item(1L, null)));
+        assertEquals(51, loads.get());
+    }
+
+    private Supplier<ItemInfoDto> loader(ItemInfoDto item) {
+        return () -> {
+            loads.incrementAndGet();
+            return item;
+        };
+    }
+
+    private ItemInfoDto item(Long id, LocalDateTime nextBookingStart) {
+        return ItemInfoDto.builder()
+                .id(id)
+                .ownerId(1L)
+                .name("item" + id)
+                .description("description")
+                .available(true)
+                .nextBooking(nextBookingStart == null ? null : BookingItemDto.builder()
+                        .id(3L)
+                        .start(nextBookingStart)
+                        .end(nextBookingStart.plusDays(1))
+                        .build())
+                .build();
+    }
+}
@@ -6,26 +6,38 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDayStatsDto;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
+import ru.practicum.shareit.item.service.ItemBatchService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.KeysetPage;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(ItemResponseCache.class)
 class ItemControllerTest {
 
     @Autowired
@@ -34,6 +46,10 @@ class ItemControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private ItemServiceImpl itemService;
+    @MockBean
+    private ItemBatchService itemBatchService;
+    @Autowired
+    private ItemResponseCache itemResponseCache;
 
     private ItemDto itemDto;
     private ItemInfoDto itemInfoDto;
@@ -42,6 +58,7 @@ class ItemControllerTest {
 
     @BeforeEach
     void setUp() {
+        itemResponseCache.clear();
         itemDto = ItemDto.builder()
                 .id(1L)
                 .name("itemName")
@@ -66,13 +83,15 @@ class ItemControllerTest {
 
     @Test
     void getItems() throws Exception {
-        when(itemService.getItems(1L))
-                .thenReturn(List.of(itemInfoDto));
+        when(itemService.getItems(1L, null, 10))
+                .thenReturn(new KeysetPage<>(List.of(itemInfoDto), "MQ"));
 
         mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", 1L)
+                        .param("limit", "10")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "MQ"))
                 .andExpect(jsonPath("$[0].id", is(1)))
                 .andExpect(jsonPath("$[0].name", is("itemName")))
                 .andExpect(jsonPath("$[0].description", is("itemDescription")))
@@ -80,6 +99,19 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].comments", is(Collections.emptyList())));
     }
 
+    @Test
+    void getItemsWithoutPaging() throws Exception {
+        when(itemService.getItems(1L, null, null))
+                .thenReturn(new KeysetPage<>(List.of(itemInfoDto), null));
+
+        mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].id", is(1)));
+    }
+
     @Test
     void getItem() throws Exception {
         when(itemService.getItem(anyLong(), anyLong()))
@@ -96,6 +128,63 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(true)));
     }
 
+    @Test
+    void getItemFromCache() throws Exception {
+        itemInfoDto.setOwnerId(1L);
+        when(itemService.getItem(anyLong(), anyLong()))
+                .thenReturn(itemInfoDto);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/items/{itemId}", 1L)
+                            .header("X-Sharer-User-Id", 2L))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(1)))
+                    .andExpect(jsonPath("$.name", is("itemName")));
+        }
+        mockMvc.perform(get("/items/{itemId}", 1L)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerId", is(1)));
+
+        verify(itemService, times(1)).getItem(2L, 1L);
+        verify(itemService, times(1)).getItem(1L, 1L);
+    }
+
+    @Test
+    void getItemStats() throws Exception {
+        LocalDate from = LocalDate.of(2030, 5, 1);
+        LocalDate to = LocalDate.of(2030, 5, 31);
+        when(itemService.getItemStats(1L, 1L, from, to))
+                .thenReturn(ItemStatsDto.builder()
+                        .itemId(1L)
+                        .from(from)
+                        .to(to)
+                        .bookings(2)
+                        .approved(1)
+                        .rejected(1)
+                        .approvalRate(0.5)
+                        .bookedHours(24.0)
+                        .averageLeadHours(3.0)
+                        .days(List.of(ItemDayStatsDto.builder()
+                                .date(from.plusDays(1))
+                                .bookings(2)
+                                .approved(1)
+                                .rejected(1)
+                                .bookedHours(24.0)
+                                .build()))
+                        .build());
+
+        mockMvc.perform(get("/items/{itemId}/stats", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "2030-05-01")
+                        .param("to", "2030-05-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.approvalRate", is(0.5)))
+                .andExpect(jsonPath("$.days[0].date", is("2030-05-02")))
+                .andExpect(jsonPath("$.days[0].bookedHours", is(24.0)));
+    }
+
     @Test
     void addItem() throws Exception {
         when(itemService.addItem(anyLong(), any(ItemDto.class)))
@@ -127,6 +216,23 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.authorName", is("commentAuthorName")));
     }
 
+    @Test
+    void addItems() throws Exception {
+        when(itemBatchService.addItems(anyLong(), any(), anyBoolean()))
+                .thenReturn(List.of(ItemBatchResultDto.builder().index(0).id(1L).build(),
+                        ItemBatchResultDto.builder().index(1).error("Недопустимое тело элемента.").build()));
+
+        mockMvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(mapper.writeValueAsString(itemDto) + "\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].error", is("Недопустимое тело элемента.")));
+
+        verify(itemBatchService).addItems(eq(1L), any(), eq(true));
+    }
+
     @Test
     void updateItem() throws Exception {
 
@@ -167,11 +273,13 @@ class ItemControllerTest {
                 .available(true)
                 .build();
 
-        when(itemService.searchItems("description"))
+        when(itemService.searchItems("description", 0, 10))
                 .thenReturn(List.of(itemDto, secondItem));
 
         mockMvc.perform(get("/items/search")
                         .param("text", "description")
+                        .param("from", "0")
+                        .param("size", "10")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id", is(1)))
@@ -184,4 +292,16 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[1].available", is(true)));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchItemsWithoutPaging() throws Exception {
+        when(itemService.searchItems("description", null, null))
+                .thenReturn(List.of(itemDto));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "description")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)));
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@Import(ItemBatchRepository.class)
+class ItemBatchRepositoryTest {
+
+    @Autowired
+    ItemBatchRepository itemBatchRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+
+    @Test
+    void saveAllTest() {
+        User owner = userRepository.save(new User(0L, "owner", "owner@mail.ru"));
+        ItemRequest request = itemRequestRepository
+                .save(new ItemRequest(null, "testDescription", owner, LocalDateTime.now()));
+
+        List<Item> saved = itemBatchRepository.saveAll(List.of(
+                new Item(null, "testName1", "testDescription1", true, owner, null),
+                new Item(null, "testName2", "testDescription2", false, owner, request)));
+
+        Assertions.assertEquals(2, saved.size());
+        Assertions.assertNotNull(saved.get(0).getId());
+        Assertions.assertTrue(saved.get(0).getId() < saved.get(1).getId());
+        Item second = itemRepository.findById(saved.get(1).getId()).orElseThrow();
+        Assertions.assertEquals("testName2", second.getName());
+        Assertions.assertEquals(request.getId(), second.getRequest().getId());
+        Assertions.assertEquals(owner.getId(), second.getOwner().getId());
+    }
+}
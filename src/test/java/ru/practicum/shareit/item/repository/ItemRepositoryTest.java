@@ -6,7 +6,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -14,6 +16,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -68,6 +71,35 @@ class ItemRepositoryTest {
         Assertions.assertEquals(2, results.size());
     }
 
+    @Test
+    void searchPageTest() {
+        List<Item> results = itemRepository.search("testname", PageRequest.of(1, 2));
+
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertEquals(item3.getId(), results.get(0).getId());
+    }
+
+    @Test
+    void searchOffsetPageTest() {
+        List<Item> results = itemRepository.search("testname", OffsetPageRequest.of(1, 2));
+
+        Assertions.assertEquals(List.of(item2.getId(), item3.getId()),
+                results.stream().map(Item::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findMatchingRanksByMatchedStems() {
+        Assertions.assertEquals(List.of(item3.getId(), item1.getId()),
+                itemRepository.findMatching(List.of("wow", "name3"), 10).stream()
+                        .map(Item::getId)
+                        .collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(item3.getId()),
+                itemRepository.findMatching(List.of("wow", "name3"), 1).stream()
+                        .map(Item::getId)
+                        .collect(Collectors.toList()));
+        Assertions.assertTrue(itemRepository.findMatching(List.of(), 10).isEmpty());
+    }
+
     @Test
     void searchTestWithNoItemsForKeyword() {
         List<Item> results = itemRepository.search("testy");
@@ -84,6 +116,15 @@ class ItemRepositoryTest {
         Assertions.assertEquals(2, results.size());
     }
 
+    @Test
+    void findAllByOwnerIdAndIdGreaterThanTest() {
+        List<Item> results = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user2.getId(),
+                item2.getId(), PageRequest.of(0, 10));
+
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertEquals(item3.getId(), results.get(0).getId());
+    }
+
     @Test
     void findAllByRequestIdTest() {
         List<Item> results = itemRepository.findAllByRequest_Id(request1.getId());
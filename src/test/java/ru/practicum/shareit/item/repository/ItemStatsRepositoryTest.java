@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemDayStats;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@Import(ItemStatsRepository.class)
+class ItemStatsRepositoryTest {
+
+    @Autowired
+    ItemStatsRepository itemStatsRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(0L, "owner", "owner@mail.ru"));
+        booker = userRepository.save(new User(0L, "booker", "booker@mail.ru"));
+        item = itemRepository.save(new Item(null, "testName", "testDescription", true, owner, null));
+    }
+
+    @Test
+    void incrementAddsToExistingDayOnly() {
+        ItemDayStats delta = ItemDayStats.builder()
+                .itemId(item.getId())
+                .date(today)
+                .bookings(1)
+                .leadMinutes(60)
+                .build();
+
+        Assertions.assertEquals(0, itemStatsRepository.increment(delta));
+        itemStatsRepository.insert(delta);
+        Assertions.assertEquals(1, itemStatsRepository.increment(delta));
+        itemStatsRepository.insert(ItemDayStats.builder()
+                .itemId(item.getId())
+                .date(today.plusDays(3))
+                .approved(1)
+                .bookedMinutes(120)
+                .build());
+
+        List<ItemDayStats> days = itemStatsRepository.findByItem(item.getId(), today, today.plusDays(2));
+        Assertions.assertEquals(1, days.size());
+        Assertions.assertEquals(2, days.get(0).getBookings());
+        Assertions.assertEquals(120, days.get(0).getLeadMinutes());
+        Assertions.assertEquals(2, itemStatsRepository.findByItem(item.getId(), today, today.plusDays(3)).size());
+    }
+
+    @Test
+    void recountRebuildsDaysFromBookings() {
+        LocalDateTime start = today.plusDays(1).atTime(10, 0);
+        save(start, start.minusHours(2), BookingStatus.APPROVED);
+        save(start.plusHours(5), start.minusHours(4), BookingStatus.REJECTED);
+        save(today.plusDays(2).atTime(9, 0), null, BookingStatus.WAITING);
+        save(today.minusDays(40).atTime(9, 0), null, BookingStatus.APPROVED);
+        itemStatsRepository.insert(ItemDayStats.builder()
+                .itemId(item.getId())
+                .date(today.plusDays(1))
+                .bookings(7)
+                .build());
+
+        Assertions.assertEquals(2, itemStatsRepository.recount(today.minusDays(30)));
+
+        List<ItemDayStats> days = itemStatsRepository.findByItem(item.getId(), today.minusDays(60),
+                today.plusDays(10));
+        Assertions.assertEquals(2, days.size());
+        ItemDayStats first = days.get(0);
+        Assertions.assertEquals(today.plusDays(1), first.getDate());
+        Assertions.assertEquals(2, first.getBookings());
+        Assertions.assertEquals(1, first.getApproved());
+        Assertions.assertEquals(1, first.getRejected());
+        Assertions.assertEquals(12 * 60, first.getBookedMinutes());
+        Assertions.assertEquals(2 * 60 + 9 * 60, first.getLeadMinutes());
+        Assertions.assertEquals(1, days.get(1).getBookings());
+        Assertions.assertEquals(0, days.get(1).getLeadMinutes());
+    }
+
+    private void save(LocalDateTime start, LocalDateTime created, BookingStatus status) {
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .ownerId(item.getOwner().getId())
+                .start(start)
+                .end(start.plusHours(12))
+                .status(status)
+                .created(created)
+                .build());
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение поиска через ItemRepository.search и через ItemSearchIndex.
+ * Запуск: mvn test -Dtest=ItemSearchBenchmarkTest -Dbenchmark=true [-Dbenchmark.items=1000000]
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ItemSearchBenchmarkTest {
+
+    private static final String[] WORDS = {"дрель", "пила", "молоток", "отвертка", "шуруповерт", "лестница",
+            "палатка", "велосипед", "самокат", "проектор", "камера", "штатив", "рюкзак", "спальник", "лодка",
+            "аккумуляторная", "ударная", "складная", "туристическая", "профессиональная", "детская", "новая"};
+    private static final String[] QUERIES = {"дрель", "аккумулятор", "палатка туристическая", "штатив", "xyz"};
+    private static final int RUNS = 5;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void searchOneMillionItems() {
+        int itemCount = Integer.getInteger("benchmark.items", 1_000_000);
+        User owner = userRepository.save(new User(null, "owner", "benchmark@mail.ru"));
+        insertItems(owner.getId(), itemCount);
+
+        ItemSearchIndexSnapshot snapshot = new ItemSearchIndexSnapshot(snapshotDir.resolve("index.snapshot").toString());
+        ItemSearchIndex searchIndex = new ItemSearchIndex(itemRepository, snapshot);
+        long started = System.nanoTime();
+        searchIndex.rebuild();
+        System.out.printf("Index rebuild for %d items: %d ms%n", itemCount, (System.nanoTime() - started) / 1_000_000);
+
+        started = System.nanoTime();
+        searchIndex.writeSnapshot();
+        System.out.printf("Snapshot write: %d ms%n", (System.nanoTime() - started) / 1_000_000);
+        started = System.nanoTime();
+        new ItemSearchIndex(itemRepository, snapshot).restore();
+        System.out.printf("Snapshot restore: %d ms%n", (System.nanoTime() - started) / 1_000_000);
+
+        for (String query : QUERIES) {
+            assertEquals(itemRepository.search(query).size(), searchIndex.search(query).size());
+            long jpql = measure(() -> itemRepository.search(query));
+            long index = measure(() -> searchIndex.search(query));
+            System.out.printf("'%s': JPQL %d us, index %d us%n", query, jpql / 1000, index / 1000);
+        }
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM item");
+        userRepository.deleteAll();
+    }
+
+    private void insertItems(Long ownerId, int itemCount) {
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " №" + i;
+            batch.add(new Object[]{name, description, random.nextInt(10) > 0, ownerId});
+            if (batch.size() == 10_000) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO item (name, description, available, owner_id, updated) "
+                + "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP - INTERVAL '1' DAY)", batch);
+        batch.clear();
+    }
+
+    private long measure(Runnable search) {
+        search.run();
+        long started = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            search.run();
+        }
+        return (System.nanoTime() - started) / RUNS;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchIndexSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAndRead() throws IOException {
+        Path file = dir.resolve("nested").resolve("index.snapshot");
+        ItemSearchIndexSnapshot snapshot = new ItemSearchIndexSnapshot(file.toString());
+        LocalDateTime highWaterMark = LocalDateTime.of(2023, 5, 25, 12, 0, 1);
+        ItemSearchIndex.IndexedItem drill = new ItemSearchIndex.IndexedItem(ItemDto.builder()
+                .id(1L).name("Дрель").description("Простая дрель").available(true).requestId(5L).build(), 7L);
+        ItemSearchIndex.IndexedItem saw = new ItemSearchIndex.IndexedItem(ItemDto.builder()
+                .id(2L).name("Пила").description(null).available(true).build(), null);
+        Map<String, Set<Long>> terms = new TreeMap<>(Map.of("дрель", Set.of(1L), "пила", Set.of(2L),
+                "простая", new TreeSet<>(Set.of(1L, 2L))));
+
+        snapshot.write(highWaterMark, List.of(drill, saw), terms);
+
+        List<ItemSearchIndex.IndexedItem> items = new ArrayList<>();
+        Map<String, long[]> readTerms = new TreeMap<>();
+        Optional<LocalDateTime> read = snapshot.read(items::add, readTerms::put);
+
+        assertEquals(Optional.of(highWaterMark), read);
+        assertEquals(2, items.size());
+        assertEquals(drill.getItem(), items.get(0).getItem());
+        assertEquals(7L, items.get(0).getOwnerId());
+        assertEquals(saw.getItem(), items.get(1).getItem());
+        assertNull(items.get(1).getOwnerId());
+        assertEquals(terms.keySet(), readTerms.keySet());
+        assertArrayEquals(new long[]{1L, 2L}, readTerms.get("простая"));
+        assertFalse(Files.exists(dir.resolve("nested").resolve("index.snapshot.tmp")));
+    }
+
+    @Test
+    void readMissingOrCorruptedSnapshot() throws IOException {
+        Path file = dir.resolve("index.snapshot");
+        ItemSearchIndexSnapshot snapshot = new ItemSearchIndexSnapshot(file.toString());
+
+        assertTrue(snapshot.read(item -> { }, (term, ids) -> { }).isEmpty());
+
+        snapshot.write(LocalDateTime.now(), List.of(), Map.of("дрель", Set.of(1L, 2L)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        assertThrows(IOException.class, () -> snapshot.read(item -> { }, (term, ids) -> { }));
+
+        Files.writeString(file, "not a snapshot");
+        assertTrue(snapshot.read(item -> { }, (term, ids) -> { }).isEmpty());
+    }
+
+    @Test
+    void disabledWithoutPath() {
+        assertFalse(new ItemSearchIndexSnapshot("").isEnabled());
+        assertTrue(new ItemSearchIndexSnapshot("index.snapshot").isEnabled());
+    }
+}
@@ -0,0 +1,205 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private ItemSearchIndexSnapshot snapshot;
+
+    @InjectMocks
+    private ItemSearchIndex searchIndex;
+
+    @TempDir
+    Path snapshotDir;
+
+    private User owner;
+    private Item drill;
+    private Item saw;
+
+    @BeforeEach
+    void setUp() {
+        owner = User.builder()
+                .id(1L)
+                .name("owner")
+                .email("owner@user.com")
+                .build();
+
+        drill = new Item(1L, "Дрель", "Простая дрель", true, owner, null);
+        saw = new Item(2L, "Пила", "Аккумуляторная пила, быстро пилит", true, owner, null);
+
+        when(itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(drill, saw));
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void rebuild() {
+        assertTrue(searchIndex.isReady());
+        assertEquals(List.of(1L), ids(searchIndex.search("дрель")));
+    }
+
+    @Test
+    void searchBySubstringIgnoringCase() {
+        assertEquals(List.of(2L), ids(searchIndex.search("аккУМУЛЯТОР")));
+        assertEquals(List.of(2L, 1L), ids(searchIndex.search("П")));
+        assertEquals(List.of(2L), ids(searchIndex.search("пила, быстро")));
+        assertTrue(searchIndex.search("быстро пила").isEmpty());
+        assertTrue(searchIndex.search("отвертка").isEmpty());
+        assertEquals(List.of(1L), ids(searchIndex.search("рель")));
+        assertEquals(List.of(2L), ids(searchIndex.search("муляторная пи")));
+        assertEquals(List.of(2L), ids(searchIndex.search("илит")));
+    }
+
+    @Test
+    void searchPage() {
+        assertEquals(List.of(1L), ids(searchIndex.search("п", PageRequest.of(1, 1))));
+        assertTrue(searchIndex.search("п", PageRequest.of(1, 2)).isEmpty());
+        assertEquals(List.of(2L, 1L), ids(searchIndex.search("п", Pageable.unpaged())));
+    }
+
+    @Test
+    void matchByWordStemsRankedByMatchedWords() {
+        assertEquals(List.of(1L), ids(searchIndex.match("Нужна дрелью, чтобы просверлить стену", 10)));
+        assertEquals(List.of(2L, 1L), ids(searchIndex.match("Пила или дрель, желательно аккумуляторная", 10)));
+        assertEquals(List.of(2L), ids(searchIndex.match("Пила или дрель, желательно аккумуляторная", 1)));
+        assertTrue(searchIndex.match("Ищу лестницу", 10).isEmpty());
+        assertEquals(List.of(2L), ids(searchIndex.match("Нужна пила на выходные", 10)));
+    }
+
+    @Test
+    void matchBeforeRebuildUsesRepositoryWithStems() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, snapshot);
+        when(itemRepository.findMatching(List.of("дрел", "стен"), 5)).thenReturn(List.of(drill));
+
+        assertEquals(List.of(1L), ids(index.match("Нужна дрель для стены на выходные", 5)));
+    }
+
+    @Test
+    void searchBeforeRebuildUsesRepository() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, snapshot);
+        when(itemRepository.search("дрель", PageRequest.of(0, 10))).thenReturn(List.of(drill));
+
+        assertFalse(index.isReady());
+        assertEquals(List.of(1L), ids(index.search("дрель", PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void indexUpdatedItem() {
+        drill.setName("Шуруповерт");
+        drill.setDescription("Шуруповерт с битами");
+        searchIndex.index(drill);
+
+        assertTrue(searchIndex.search("дрель").isEmpty());
+        assertTrue(searchIndex.search("рель").isEmpty());
+        assertEquals(List.of(1L), ids(searchIndex.search("шуруп")));
+        assertEquals(List.of(1L), ids(searchIndex.search("поверт")));
+
+        drill.setAvailable(false);
+        searchIndex.index(drill);
+
+        assertTrue(searchIndex.search("шуруп").isEmpty());
+    }
+
+    @Test
+    void remove() {
+        searchIndex.remove(drill.getId());
+
+        assertTrue(searchIndex.search("дрель").isEmpty());
+        assertEquals(List.of(2L), ids(searchIndex.search("пила")));
+
+        searchIndex.removeOwner(owner.getId());
+
+        assertTrue(searchIndex.search("пила").isEmpty());
+    }
+
+    @Test
+    void changesDuringRebuildAreReplayed() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, snapshot);
+        index.index(drill);
+        index.remove(saw.getId());
+        when(itemRepository.findById(drill.getId())).thenReturn(Optional.of(drill));
+        when(itemRepository.findById(saw.getId())).thenReturn(Optional.empty());
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), ids(index.search("дрель")));
+        assertTrue(index.search("пила").isEmpty());
+    }
+
+    @Test
+    void restoreFromSnapshotAndReplayChanges() {
+        ItemSearchIndexSnapshot fileSnapshot =
+                new ItemSearchIndexSnapshot(snapshotDir.resolve("index.snapshot").toString());
+        ItemSearchIndex written = new ItemSearchIndex(itemRepository, fileSnapshot);
+        written.rebuild();
+        written.writeSnapshot();
+
+        Item hammer = new Item(3L, "Молоток", "Молоток без гвоздей", true, owner, null);
+        saw.setName("Ножовка");
+        when(itemRepository.findAllByUpdatedGreaterThanEqualAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any()))
+                .thenReturn(List.of(saw));
+        when(itemRepository.findAvailableIds(anyLong(), any())).thenReturn(List.of(2L, 3L));
+        when(itemRepository.findAllById(List.of(3L))).thenReturn(List.of(hammer));
+
+        clearInvocations(itemRepository);
+        ItemSearchIndex restored = new ItemSearchIndex(itemRepository, fileSnapshot);
+        restored.start();
+
+        assertTrue(restored.isReady());
+        verify(itemRepository, never()).findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(anyLong(), any());
+        assertTrue(restored.search("дрель").isEmpty());
+        assertEquals(List.of(2L), ids(restored.search("ножовка")));
+        assertEquals(List.of(2L), ids(restored.search("аккумулятор")));
+        assertTrue(restored.search("пила").stream().noneMatch(item -> item.getName().equals("Пила")));
+        assertEquals(List.of(3L), ids(restored.search("гвозд")));
+        assertEquals(List.of(2L), ids(restored.search("жовк")));
+    }
+
+    @Test
+    void startWithoutSnapshotRebuilds() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository,
+                new ItemSearchIndexSnapshot(snapshotDir.resolve("missing.snapshot").toString()));
+
+        index.start();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), ids(index.search("дрель")));
+    }
+
+    private List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
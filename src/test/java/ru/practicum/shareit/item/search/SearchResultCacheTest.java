@@ -0,0 +1,125 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<ItemDto> result = List.of(ItemDto.builder().id(1L).name("Дрель").build());
+
+    @Test
+    void cachedByTextInAnyCaseAndPage() {
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+
+        assertEquals(result, cache.get("Дрель", PageRequest.of(0, 10), loader()));
+        assertEquals(result, cache.get("дРЕЛЬ", PageRequest.of(0, 10), loader()));
+        cache.get("дрель", PageRequest.of(1, 10), loader());
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void unpagedResultIsCachedUnderOwnKey() {
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+
+        cache.get("дрель", Pageable.unpaged(), loader());
+        cache.get("Дрель", Pageable.unpaged(), loader());
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void resultsLongerThanMaxItemsAreNotCached() {
+        SearchResultCache cache = new SearchResultCache(10, 1, Duration.ofMinutes(1));
+        List<ItemDto> wide = List.of(ItemDto.builder().id(1L).build(), ItemDto.builder().id(2L).build());
+
+        assertEquals(wide, cache.get("дрель", Pageable.unpaged(), () -> {
+            loads.incrementAndGet();
+            return wide;
+        }));
+        cache.get("дрель", Pageable.unpaged(), loader());
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidate() {
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+        cache.invalidate();
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingWithInvalidateIsNotServed() {
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+
+        cache.get("дрель", PageRequest.of(0, 10), () -> {
+            cache.invalidate();
+            return loader().get();
+        });
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void expiredAndEvictedEntriesAreReloaded() throws InterruptedException {
+        SearchResultCache expiring = new SearchResultCache(10, 100, Duration.ofMillis(1));
+        expiring.get("дрель", PageRequest.of(0, 10), loader());
+        Thread.sleep(5);
+        expiring.get("дрель", PageRequest.of(0, 10), loader());
+        assertEquals(2, loads.get());
+
+        SearchResultCache small = new SearchResultCache(2, 100, Duration.ofMinutes(1));
+        small.get("a", PageRequest.of(0, 10), loader());
+        small.get("b", PageRequest.of(0, 10), loader());
+        small.get("a", PageRequest.of(0, 10), loader());
+        small.get("c", PageRequest.of(0, 10), loader());
+        small.get("a", PageRequest.of(0, 10), loader());
+        small.get("b", PageRequest.of(0, 10), loader());
+        assertEquals(2, small.size());
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    void metrics() {
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+        cache.get("дрель", PageRequest.of(0, 10), loader());
+
+        assertEquals(1.0, registry.get("shareit.search.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("shareit.search.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("shareit.search.cache.size").gauge().value());
+    }
+
+    private Supplier<List<ItemDto>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemBatchRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class ItemBatchServiceImplTest {
+
+    @Mock
+    private ItemBatchRepository itemBatchRepository;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RequestFeed requestFeed;
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    @InjectMocks
+    private ItemBatchServiceImpl itemBatchService;
+
+    private final AtomicLong ids = new AtomicLong();
+    private User owner;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        owner = User.builder()
+                .id(1L)
+                .name("owner")
+                .email("owner@user.com")
+                .build();
+
+        when(userCache.find(owner.getId())).thenReturn(Optional.of(owner));
+        when(itemRequestRepository.findAllById(any()))
+                .thenReturn(List.of(new ItemRequest(7L, "description", owner, LocalDateTime.now())));
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(itemBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            items.forEach(item -> item.setId(ids.incrementAndGet()));
+            return items;
+        });
+    }
+
+    @Test
+    void addItemsFromJsonArray() {
+        List<ItemBatchResultDto> results = itemBatchService.addItems(owner.getId(), body("["
+                + "{\"name\": \"Дрель\", \"description\": \"Простая дрель\", \"available\": true},"
+                + "{\"description\": \"Без названия\", \"available\": true},"
+                + "{\"name\": \"Пила\", \"description\": \"Пила\", \"available\": true, \"requestId\": 8},"
+                + "{\"name\": \"Молоток\", \"description\": \"Молоток\", \"available\": \"maybe\"},"
+                + "{\"name\": \"Лестница\", \"description\": \"Лестница\", \"available\": false, \"requestId\": 7}"
+                + "]"), false);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), indexes(results));
+        assertEquals(1L, results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        assertEquals("Запрос не найден.", results.get(2).getError());
+        assertNotNull(results.get(3).getError());
+        assertEquals(2L, results.get(4).getId());
+        verify(itemBatchRepository, times(1)).saveAll(anyList());
+        verify(searchEngine, times(2)).index(any());
+        verify(requestFeed, times(1)).putItem(argThat(item -> item.getId() == 2L && item.getRequestId() == 7L));
+    }
+
+    @Test
+    void addItemsFromNdjson() {
+        List<ItemBatchResultDto> results = itemBatchService.addItems(owner.getId(), body(
+                "{\"name\": \"Дрель\", \"description\": \"Простая дрель\", \"available\": true}\n"
+                        + "{\"name\": \"Пила\", \n"
+                        + "\n"
+                        + "{\"name\": \"Молоток\", \"description\": \"Молоток\", \"available\": true}\n"), true);
+
+        assertEquals(List.of(0, 1, 2), indexes(results));
+        assertEquals(1L, results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        assertEquals(2L, results.get(2).getId());
+    }
+
+    @Test
+    void addItemsInChunks() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ItemBatchServiceImpl.CHUNK_SIZE + 1; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\": \"n\", \"description\": \"d\", \"available\": true}");
+        }
+
+        List<ItemBatchResultDto> results = itemBatchService.addItems(owner.getId(), body(json + "]"), false);
+
+        assertEquals(ItemBatchServiceImpl.CHUNK_SIZE + 1, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getError() == null));
+        verify(itemBatchRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() {
+        when(itemBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            if (items.size() > 1 || items.get(0).getName().equals("Пила")) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            items.forEach(item -> item.setId(ids.incrementAndGet()));
+            return items;
+        });
+
+        List<ItemBatchResultDto> results = itemBatchService.addItems(owner.getId(), body("["
+                + "{\"name\": \"Дрель\", \"description\": \"Простая дрель\", \"available\": true},"
+                + "{\"name\": \"Пила\", \"description\": \"Пила\", \"available\": true}"
+                + "]"), false);
+
+        assertEquals(1L, results.get(0).getId());
+        assertEquals("Не удалось сохранить вещь.", results.get(1).getError());
+    }
+
+    @Test
+    void addItemsWithUnknownOwner() {
+        assertThrows(ObjectNotFoundException.class,
+                () -> itemBatchService.addItems(2L, body("[]"), false));
+        verify(itemBatchRepository, never()).saveAll(anyList());
+        verify(itemRequestRepository, never()).findById(anyLong());
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Integer> indexes(List<ItemBatchResultDto> results) {
+        return results.stream().map(ItemBatchResultDto::getIndex).collect(Collectors.toList());
+    }
+}
@@ -8,35 +8,57 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingItemView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemInfoDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemDayStats;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -49,15 +71,36 @@ class ItemServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+
+    @Mock
+    private ItemStatsRepository itemStatsRepository;
+
     @Mock
     private CommentRepository commentRepository;
 
     @Mock
     private ItemRequestRepository itemRequestRepository;
 
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private ItemResponseCache itemResponseCache;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private RequestFeed requestFeed;
+
     @InjectMocks
     private ItemServiceImpl itemServiceImpl;
 
@@ -111,25 +154,69 @@ class ItemServiceImplTest {
 
     @Test
     void getItems() {
-        Booking booking1 = booking;
-        booking1.setId(2L);
         when(userRepository.existsById(user.getId())).thenReturn(true);
 
         when(commentRepository.existsById(item.getId())).thenReturn(true);
-        when(itemRepository.findAllByOwnerId(user.getId())).thenReturn(List.of(item));
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user.getId(), 0L, PageRequest.of(0, 11)))
+                .thenReturn(List.of(item));
         when(commentRepository.findByItem_Id(item.getId())).thenReturn(List.of(comment));
-        when(bookingRepository.findAllByItemIdOrderByStartAsc(item.getId())).thenReturn(List.of(booking, booking1));
+        when(bookingRepository.findLastAndNextBookings(anyCollection(), any()))
+                .thenReturn(List.of(toView(booking, item), toView(nextBooking(), item)));
 
-        List<ItemInfoDto> items = itemServiceImpl.getItems(user.getId());
+        KeysetPage<ItemInfoDto> page = itemServiceImpl.getItems(user.getId(), null, 10);
+        List<ItemInfoDto> items = page.getItems();
 
         assertNotNull(items);
+        assertNull(page.getNextCursor());
         assertEquals(items.get(0).getId(), item.getId());
+        assertEquals(items.get(0).getLastBooking().getId(), booking.getId());
+        assertEquals(items.get(0).getNextBooking().getId(), 3L);
+    }
+
+    @Test
+    void getItemsNextPage() {
+        Item second = new Item(2L, "item2", "description2", true, user, null);
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user.getId(), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item, second));
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user.getId(), item.getId(),
+                PageRequest.of(0, 2)))
+                .thenReturn(List.of(second));
+
+        KeysetPage<ItemInfoDto> first = itemServiceImpl.getItems(user.getId(), null, 1);
+        assertEquals(1, first.getItems().size());
+        assertEquals(item.getId(), first.getItems().get(0).getId());
+        assertNotNull(first.getNextCursor());
+
+        KeysetPage<ItemInfoDto> next = itemServiceImpl.getItems(user.getId(), first.getNextCursor(), 1);
+        assertEquals(second.getId(), next.getItems().get(0).getId());
+        assertNull(next.getNextCursor());
+
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.getItems(user.getId(), "???", 1));
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.getItems(user.getId(), null, 0));
+    }
+
+    @Test
+    void getItemsWithoutPaging() {
+        Item second = new Item(2L, "item2", "description2", true, user, null);
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user.getId(), 0L, Pageable.unpaged()))
+                .thenReturn(List.of(item, second));
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(user.getId(), item.getId(),
+                PageRequest.of(0, ItemServiceImpl.DEFAULT_ITEMS_LIMIT + 1)))
+                .thenReturn(List.of(second));
+
+        KeysetPage<ItemInfoDto> all = itemServiceImpl.getItems(user.getId(), null, null);
+        assertEquals(2, all.getItems().size());
+        assertNull(all.getNextCursor());
+
+        KeysetPage<ItemInfoDto> next = itemServiceImpl.getItems(user.getId(), KeysetCursor.encode(item.getId()), null);
+        assertEquals(List.of(second.getId()),
+                next.getItems().stream().map(ItemInfoDto::getId).collect(Collectors.toList()));
     }
 
     @Test
     void getItem() {
         item.setOwner(user);
-        when(userRepository.findById(user.getId()))
+        when(userCache.find(user.getId()))
                 .thenReturn(Optional.of(user));
         assertThrows(ObjectNotFoundException.class, () -> itemServiceImpl.getItem(2L, 1L));
 
@@ -139,10 +226,8 @@ class ItemServiceImplTest {
 
         when(commentRepository.existsById(item.getId())).thenReturn(true);
         when(commentRepository.getReferenceById(item.getId())).thenReturn(comment);
-        when(bookingRepository.findAllByItemIdOrderByStartAsc(anyLong()))
-                .thenReturn(List.of(booking));
-        when(bookingRepository.findAllByBookerIdAndEndIsBefore(anyLong(),
-                any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findLastAndNextBookings(anyCollection(), any()))
+                .thenReturn(List.of(toView(booking, item)));
 
         ItemInfoDto result = itemServiceImpl.getItem(1L, 1L);
 
@@ -155,7 +240,7 @@ class ItemServiceImplTest {
     void addItem() {
         ItemDto itemDto = ItemMapper.toItemDto(item);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCache.find(user.getId())).thenReturn(Optional.of(user));
         assertThrows(ObjectNotFoundException.class, () -> itemServiceImpl.addItem(999L, itemDto));
         when(itemRequestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
         when(itemRepository.save(any(Item.class))).thenReturn(ItemMapper.toItem(itemDto));
@@ -185,24 +270,93 @@ class ItemServiceImplTest {
 
         itemServiceImpl.deleteItem(1L);
         verify(itemRepository).deleteById(1L);
+        verify(searchEngine).remove(1L);
+        verify(requestFeed).removeItem(1L);
+    }
+
+    @Test
+    void getItemStats() {
+        LocalDate from = LocalDate.of(2030, Month.MAY, 1);
+        LocalDate to = LocalDate.of(2030, Month.MAY, 31);
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemStatsRepository.findByItem(item.getId(), from, to)).thenReturn(List.of(
+                new ItemDayStats(item.getId(), from.plusDays(1), 3, 2, 1, 600, 180),
+                new ItemDayStats(item.getId(), from.plusDays(5), 1, 1, 0, 120, 60)));
+
+        ItemStatsDto stats = itemServiceImpl.getItemStats(user.getId(), item.getId(), from, to);
+
+        assertEquals(4, stats.getBookings());
+        assertEquals(3, stats.getApproved());
+        assertEquals(1, stats.getRejected());
+        assertEquals(0.75, stats.getApprovalRate());
+        assertEquals(12.0, stats.getBookedHours());
+        assertEquals(1.0, stats.getAverageLeadHours());
+        assertEquals(2, stats.getDays().size());
+        assertEquals(10.0, stats.getDays().get(0).getBookedHours());
+
+        when(itemStatsRepository.findByItem(eq(item.getId()), any(), any())).thenReturn(List.of());
+        ItemStatsDto empty = itemServiceImpl.getItemStats(user.getId(), item.getId(), null, null);
+        assertEquals(LocalDate.now(), empty.getTo());
+        assertEquals(LocalDate.now().minusDays(ItemServiceImpl.DEFAULT_STATS_DAYS - 1), empty.getFrom());
+        assertEquals(0, empty.getBookings());
+        assertNull(empty.getApprovalRate());
+        assertNull(empty.getAverageLeadHours());
+    }
+
+    @Test
+    void getItemStatsChecksOwnerAndPeriod() {
+        LocalDate today = LocalDate.now();
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+
+        assertThrows(ObjectNotFoundException.class, () -> itemServiceImpl.getItemStats(2L, item.getId(), null, null));
+        assertThrows(ObjectNotFoundException.class, () -> itemServiceImpl.getItemStats(user.getId(), 999L, null,
+                null));
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.getItemStats(user.getId(), item.getId(),
+                today, today.minusDays(1)));
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.getItemStats(user.getId(), item.getId(),
+                today.minusDays(ItemServiceImpl.MAX_STATS_DAYS), today));
+        verify(itemStatsRepository, never()).findByItem(any(), any(), any());
     }
 
     @Test
     void searchItems() {
         ItemDto itemDto = ItemMapper.toItemDto(item);
 
-        when(itemServiceImpl.searchItems("")).thenReturn(Collections.emptyList());
-        assertTrue(itemRepository.search("").isEmpty());
+        when(searchEngine.search("item1", OffsetPageRequest.of(3, 5))).thenReturn(List.of(itemDto));
+        when(searchEngine.search("item1", Pageable.unpaged())).thenReturn(List.of(itemDto, itemDto));
+        when(searchResultCache.get(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<ItemDto>>>getArgument(2).get());
+
+        assertTrue(itemServiceImpl.searchItems("", 0, 10).isEmpty());
+        assertEquals(List.of(itemDto), itemServiceImpl.searchItems("item1", 3, 5));
+        assertEquals(2, itemServiceImpl.searchItems("item1", null, null).size());
+        verify(searchResultCache).get(eq("item1"), eq(Pageable.unpaged()), any());
+        itemServiceImpl.searchItems("item1", 3, null);
+        verify(searchEngine).search("item1", OffsetPageRequest.of(3, ItemServiceImpl.DEFAULT_SEARCH_SIZE));
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.searchItems("item1", -1, 5));
+        assertThrows(InvalidEntityException.class, () -> itemServiceImpl.searchItems("item1", 0, 0));
+    }
+
+    @Test
+    void defaultSearchIsServedFromCache() {
+        ItemDto itemDto = ItemMapper.toItemDto(item);
+        SearchResultCache cache = new SearchResultCache(10, 100, Duration.ofMinutes(1));
+
+        when(searchEngine.search("item1", Pageable.unpaged())).thenReturn(List.of(itemDto));
+        when(searchResultCache.get(any(), any(), any())).thenAnswer(invocation -> cache.get(invocation.getArgument(0),
+                invocation.getArgument(1), invocation.<Supplier<List<ItemDto>>>getArgument(2)));
 
-        when(itemServiceImpl.searchItems("item1")).thenReturn(List.of(itemDto));
-        assertFalse(itemRepository.search("item1").isEmpty());
+        assertEquals(List.of(itemDto), itemServiceImpl.searchItems("item1", null, null));
+        assertEquals(List.of(itemDto), itemServiceImpl.searchItems("item1", null, null));
+        verify(searchEngine, times(1)).search("item1", Pageable.unpaged());
+        assertEquals(1, cache.getHits());
     }
 
     @Test
     void addComment() {
         CommentDto commentDto = CommentMapper.toCommentDto(comment);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userCache.find(user.getId())).thenReturn(Optional.of(user));
         assertThrows(InvalidEntityException.class, () -> itemServiceImpl.addComment(2L, 1L, commentDto));
 
         ItemInfoDto itemInfoDto = mock(ItemInfoDto.class);
@@ -261,7 +415,7 @@ class ItemServiceImplTest {
 
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
         assertEquals(itemRequest.getId(), itemServiceImpl.updateItem(1L, 1L, updatedItemDto).getRequestId());
 
         when(itemRepository.findById(1L)).thenReturn(Optional.empty());
@@ -294,4 +448,38 @@ class ItemServiceImplTest {
             itemServiceImpl.updateItem(1L, 1L, updatedItemDto);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateItemOwnerMovesBookingsToNewOwner() {
+        User newOwner = User.builder().id(2L).name("newOwner").email("new@user.com").build();
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(userCache.find(2L)).thenReturn(Optional.of(newOwner));
+
+        itemServiceImpl.updateItem(1L, 1L, ItemDto.builder().owner(2L).build());
+        assertEquals(newOwner, item.getOwner());
+        verify(bookingRepository).updateOwnerByItemId(1L, 2L);
+        verify(bookingArchiveRepository).updateOwnerByItemId(1L, 2L);
+
+        itemServiceImpl.updateItem(2L, 1L, ItemDto.builder().name("renamed").build());
+        verifyNoMoreInteractions(bookingArchiveRepository);
+    }
+
+    private Booking nextBooking() {
+        return Booking.builder()
+                .id(3L)
+                .booker(user)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
+    private BookingItemView toView(Booking booking, Item item) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingItemView.class, Map.of(
+                "id", booking.getId(),
+                "itemId", item.getId(),
+                "bookerId", booking.getBooker().getId(),
+                "startDate", booking.getStart(),
+                "endDate", booking.getEnd()));
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemDayStats;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class ItemStatsRecorderTest {
+
+    @Mock
+    private ItemStatsRepository itemStatsRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ItemStatsRecorder itemStatsRecorder;
+
+    private final LocalDateTime start = LocalDateTime.of(2030, 5, 20, 10, 0);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        itemStatsRecorder = new ItemStatsRecorder(itemStatsRepository, transactionTemplate);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void recordCreatedInsertsMissingDay() {
+        when(itemStatsRepository.increment(any())).thenReturn(0);
+
+        itemStatsRecorder.recordCreated(booking(start.minusHours(3)));
+
+        ArgumentCaptor<ItemDayStats> captor = ArgumentCaptor.forClass(ItemDayStats.class);
+        verify(itemStatsRepository).insert(captor.capture());
+        ItemDayStats delta = captor.getValue();
+        assertEquals(7L, delta.getItemId());
+        assertEquals(start.toLocalDate(), delta.getDate());
+        assertEquals(1, delta.getBookings());
+        assertEquals(180, delta.getLeadMinutes());
+        assertEquals(0, delta.getApproved());
+    }
+
+    @Test
+    void recordDecisionIncrementsExistingDay() {
+        when(itemStatsRepository.increment(any())).thenReturn(1);
+
+        itemStatsRecorder.recordDecision(booking(null), BookingStatus.APPROVED);
+        itemStatsRecorder.recordDecision(booking(null), BookingStatus.REJECTED);
+        itemStatsRecorder.recordDecision(booking(null), BookingStatus.CANCELED);
+
+        ArgumentCaptor<ItemDayStats> captor = ArgumentCaptor.forClass(ItemDayStats.class);
+        verify(itemStatsRepository, times(2)).increment(captor.capture());
+        assertEquals(1, captor.getAllValues().get(0).getApproved());
+        assertEquals(36 * 60, captor.getAllValues().get(0).getBookedMinutes());
+        assertEquals(1, captor.getAllValues().get(1).getRejected());
+        assertEquals(0, captor.getAllValues().get(1).getBookedMinutes());
+        verify(itemStatsRepository, never()).insert(any());
+    }
+
+    @Test
+    void concurrentInsertFallsBackToIncrement() {
+        when(itemStatsRepository.increment(any())).thenReturn(0).thenReturn(1);
+        doThrow(new DuplicateKeyException("duplicate")).when(itemStatsRepository).insert(any());
+
+        itemStatsRecorder.recordCreated(booking(start.minusDays(1)));
+
+        verify(itemStatsRepository, times(2)).increment(any());
+        verify(itemStatsRepository).insert(any());
+    }
+
+    @Test
+    void writeFailureIsNotPropagated() {
+        when(itemStatsRepository.increment(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        itemStatsRecorder.recordDecision(booking(null), BookingStatus.APPROVED);
+
+        verify(itemStatsRepository, never()).insert(any());
+    }
+
+    private Booking booking(LocalDateTime created) {
+        return Booking.builder()
+                .id(1L)
+                .item(Item.builder().id(7L).build())
+                .start(start)
+                .end(start.plusHours(36))
+                .created(created)
+                .build();
+    }
+}
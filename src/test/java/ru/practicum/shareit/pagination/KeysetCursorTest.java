@@ -0,0 +1,27 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.InvalidEntityException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeAndDecode() {
+        LocalDateTime start = LocalDateTime.of(2023, 5, 25, 12, 0);
+        String cursor = KeysetCursor.encode(start, 42L);
+
+        assertArrayEquals(new String[]{start.toString(), "42"}, KeysetCursor.decode(cursor, 2));
+        assertEquals(42L, KeysetCursor.decodeId(KeysetCursor.encode(42L)));
+    }
+
+    @Test
+    void decodeInvalidCursor() {
+        assertThrows(InvalidEntityException.class, () -> KeysetCursor.decodeId("not a cursor"));
+        assertThrows(InvalidEntityException.class, () -> KeysetCursor.decodeId(KeysetCursor.encode("abc")));
+        assertThrows(InvalidEntityException.class, () -> KeysetCursor.decode(KeysetCursor.encode(1L), 2));
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -22,6 +24,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemRequestController.class)
@@ -54,19 +57,52 @@ class ItemRequestControllerTest {
 
     @Test
     void getRequests() throws Exception {
-        when(itemRequestService.getRequests(anyLong()))
-                .thenReturn(List.of(RequestMapper.toItemRequestDto(itemRequest)));
+        when(itemRequestService.getRequests(1L, null, 10))
+                .thenReturn(new KeysetPage<>(List.of(RequestMapper.toItemRequestDto(itemRequest)), "MQ"));
 
         mockMvc.perform(get("/requests")
+                        .param("size", "10")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "MQ"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(RequestMapper
                         .toItemRequestDto(itemRequest)))));
     }
 
+    @Test
+    void getRequestsWithoutPaging() throws Exception {
+        when(itemRequestService.getRequests(1L, null, null))
+                .thenReturn(new KeysetPage<>(List.of(RequestMapper.toItemRequestDto(itemRequest)), null));
+
+        mockMvc.perform(get("/requests")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetPage.NEXT_CURSOR_HEADER))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(RequestMapper
+                        .toItemRequestDto(itemRequest)))));
+    }
+
+    @Test
+    void getMatches() throws Exception {
+        List<ItemDto> matches = List.of(ItemDto.builder().id(10L).name("Дрель").available(true).requestId(1L).build());
+        when(itemRequestService.getMatches(1L, 5)).thenReturn(matches);
+
+        mockMvc.perform(get("/requests/matches")
+                        .param("size", "5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(matches)));
+    }
+
     @Test
     void getRequestById() throws Exception {
         when(itemRequestService.getRequestById(anyLong(), anyLong()))
@@ -84,10 +120,11 @@ class ItemRequestControllerTest {
 
     @Test
     void getAllRequest() throws Exception {
-        when(itemRequestService.getAllRequest(anyLong(), anyInt(), anyInt()))
-                .thenReturn(List.of(RequestMapper.toItemRequestDto(itemRequest)));
+        when(itemRequestService.getAllRequest(1L, "MQ", 0, 10))
+                .thenReturn(new KeysetPage<>(List.of(RequestMapper.toItemRequestDto(itemRequest)), null));
 
         mockMvc.perform(get("/requests/all")
+                        .param("after", "MQ")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
@@ -0,0 +1,121 @@
+package ru.practicum.shareit.request.feed;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.repository.ItemRequestPageQuery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestFeedTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<ItemRequestDto> database = new ArrayList<>(List.of(
+            request(3L, 1L, now),
+            request(2L, 2L, now.minusMinutes(1)),
+            request(1L, 1L, now.minusMinutes(2))));
+
+    @Test
+    void pageFiltersOwnRequestsOfReader() {
+        RequestFeed feed = new RequestFeed(10, Duration.ofMinutes(1));
+
+        assertEquals(List.of(2L), ids(feed.find(query(1L, 0, 10), loader())));
+        assertEquals(List.of(3L, 1L), ids(feed.find(query(2L, 0, 10), loader())));
+        assertEquals(List.of(1L), ids(feed.find(query(2L, 1, 10), loader())));
+        assertEquals(1, loads.get());
+        assertEquals(3, feed.getHits());
+    }
+
+    @Test
+    void pageAfterCursor() {
+        RequestFeed feed = new RequestFeed(10, Duration.ofMinutes(1));
+
+        assertEquals(List.of(1L), ids(feed.find(ItemRequestPageQuery.builder()
+                .userId(2L)
+                .afterCreated(now)
+                .afterId(3L)
+                .limit(10)
+                .build(), loader())));
+    }
+
+    @Test
+    void pageBeyondIncompleteFeedGoesToDatabase() {
+        RequestFeed feed = new RequestFeed(2, Duration.ofMinutes(1));
+
+        assertEquals(List.of(3L), ids(feed.find(query(2L, 0, 1), loader())));
+        assertTrue(feed.find(query(2L, 0, 2), loader()).isEmpty());
+        assertEquals(1, feed.getMisses());
+    }
+
+    @Test
+    void addedRequestsAndItemsAreVisibleWithoutReload() {
+        RequestFeed feed = new RequestFeed(3, Duration.ofMinutes(1));
+        feed.find(query(5L, 0, 10), loader());
+
+        feed.add(request(4L, 1L, now.plusMinutes(1)));
+        feed.putItem(ItemDto.builder().id(10L).name("Дрель").requestId(2L).build());
+
+        List<ItemRequestDto> page = feed.find(query(5L, 0, 3), loader()).orElseThrow();
+        assertEquals(List.of(4L, 3L, 2L), ids(Optional.of(page)));
+        assertEquals(List.of(10L), page.get(2).getItems().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertTrue(feed.find(query(5L, 0, 4), loader()).isEmpty());
+
+        feed.removeItem(10L);
+        assertTrue(feed.find(query(5L, 0, 3), loader()).orElseThrow().get(2).getItems().isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void expiredFeedIsReloaded() {
+        RequestFeed feed = new RequestFeed(10, Duration.ZERO);
+
+        feed.find(query(5L, 0, 10), loader());
+        feed.find(query(5L, 0, 10), loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    private IntFunction<List<ItemRequestDto>> loader() {
+        return limit -> {
+            loads.incrementAndGet();
+            return database.stream().limit(limit).collect(Collectors.toList());
+        };
+    }
+
+    private static ItemRequestPageQuery query(Long userId, int offset, int limit) {
+        return ItemRequestPageQuery.builder()
+                .userId(userId)
+                .offset(offset)
+                .limit(limit)
+                .build();
+    }
+
+    private static List<Long> ids(Optional<List<ItemRequestDto>> page) {
+        return page.orElseThrow().stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static ItemRequestDto request(Long id, Long requestor, LocalDateTime created) {
+        return ItemRequestDto.builder()
+                .id(id)
+                .description("request" + id)
+                .requestor(requestor)
+                .created(created)
+                .items(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.request.match;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class ItemRequestMatcherTest {
+
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private RequestMatchRepository requestMatchRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ItemRequestMatcher matcher;
+    private User requestor;
+    private User owner;
+    private ItemRequest request;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new ItemRequestMatcher(searchEngine, itemRepository, requestMatchRepository, transactionTemplate,
+                Runnable::run, 2);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        requestor = User.builder().id(1L).name("requestor").email("requestor@user.com").build();
+        owner = User.builder().id(2L).name("owner").email("owner@user.com").build();
+        request = ItemRequest.builder()
+                .id(5L)
+                .description("Нужна дрель")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitSavesAvailableItemsOfOtherOwnersInSearchOrder() {
+        Item own = new Item(10L, "Дрель", "Своя дрель", true, requestor, null);
+        Item unavailable = new Item(11L, "Дрель", "Сломанная дрель", false, owner, null);
+        Item best = new Item(12L, "Дрель", "Ударная дрель", true, owner, null);
+        Item second = new Item(13L, "Дрель", "Простая дрель", true, owner, null);
+        when(searchEngine.match("Нужна дрель", 4)).thenReturn(List.of(dto(10L), dto(11L), dto(12L), dto(13L)));
+        when(itemRepository.findAllById(List.of(10L, 11L, 12L, 13L)))
+                .thenReturn(List.of(second, best, unavailable, own));
+
+        matcher.submit(request);
+
+        ArgumentCaptor<List<Item>> saved = ArgumentCaptor.forClass(List.class);
+        verify(requestMatchRepository).saveAll(eq(5L), saved.capture());
+        assertEquals(List.of(12L, 13L), saved.getValue().stream()
+                .map(Item::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void submitWithoutCandidatesSavesNothing() {
+        when(searchEngine.match(anyString(), anyInt())).thenReturn(List.of());
+
+        matcher.submit(request);
+
+        verify(itemRepository, never()).findAllById(any());
+        verify(requestMatchRepository, never()).saveAll(anyLong(), any());
+    }
+
+    @Test
+    void submitIgnoresFullQueue() {
+        matcher = new ItemRequestMatcher(searchEngine, itemRepository, requestMatchRepository, transactionTemplate,
+                task -> {
+                    throw new RejectedExecutionException();
+                }, 2);
+
+        assertDoesNotThrow(() -> matcher.submit(request));
+        verify(searchEngine, never()).match(anyString(), anyInt());
+    }
+
+    @Test
+    void matchFailureIsNotPropagated() {
+        when(searchEngine.match(anyString(), anyInt())).thenThrow(new IllegalStateException("index"));
+
+        assertEquals(0, matcher.match(5L, 1L, "Нужна дрель"));
+    }
+
+    private static ItemDto dto(Long id) {
+        return ItemDto.builder().id(id).build();
+    }
+}
@@ -10,6 +10,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -43,4 +44,38 @@ class ItemRequestRepositoryTests {
         assertThat(itemRequestRepository.findAllByRequestorId(user2.getId())
                 .stream().count(), equalTo(0L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findPageWalksKeysetInCreatedOrder() {
+        User user = userRepository.save(User.builder().name("name").email("email@email.com").build());
+        User other = userRepository.save(User.builder().name("other").email("other@email.com").build());
+        LocalDateTime created = LocalDateTime.now().withNano(0);
+        ItemRequest oldest = save(other, created.minusDays(1));
+        ItemRequest tie1 = save(other, created);
+        ItemRequest tie2 = save(other, created);
+        ItemRequest own = save(user, created.plusDays(1));
+
+        assertThat(ids(ItemRequestPageQuery.builder().userId(user.getId()).limit(10).build()),
+                equalTo(List.of(tie2.getId(), tie1.getId(), oldest.getId())));
+        assertThat(ids(ItemRequestPageQuery.builder().userId(user.getId()).own(true).limit(10).build()),
+                equalTo(List.of(own.getId())));
+        assertThat(ids(ItemRequestPageQuery.builder().userId(user.getId()).limit(2)
+                        .afterCreated(tie2.getCreated()).afterId(tie2.getId()).build()),
+                equalTo(List.of(tie1.getId(), oldest.getId())));
+        assertThat(ids(ItemRequestPageQuery.builder().userId(user.getId()).offset(1).limit(1).build()),
+                equalTo(List.of(tie1.getId())));
+        assertThat(ids(ItemRequestPageQuery.builder().userId(user.getId()).build()),
+                equalTo(List.of(tie2.getId(), tie1.getId(), oldest.getId())));
+    }
+
+    private ItemRequest save(User requestor, LocalDateTime created) {
+        return itemRequestRepository.save(ItemRequest.builder().description("description").requestor(requestor)
+                .created(created).build());
+    }
+
+    private List<Long> ids(ItemRequestPageQuery query) {
+        return itemRequestRepository.findPage(query).stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+    }
+}
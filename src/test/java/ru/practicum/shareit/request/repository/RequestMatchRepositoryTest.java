@@ -0,0 +1,85 @@
+package ru.practicum.shareit.request.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@Import(RequestMatchRepository.class)
+class RequestMatchRepositoryTest {
+
+    @Autowired
+    RequestMatchRepository requestMatchRepository;
+
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private User owner;
+    private ItemRequest first;
+    private ItemRequest second;
+    private Item drill;
+    private Item saw;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(0L, "owner", "owner@mail.ru"));
+        User requestor = userRepository.save(new User(0L, "requestor", "requestor@mail.ru"));
+        first = itemRequestRepository.save(ItemRequest.builder()
+                .description("Нужна дрель")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build());
+        second = itemRequestRepository.save(ItemRequest.builder()
+                .description("Нужна пила")
+                .requestor(requestor)
+                .created(LocalDateTime.now())
+                .build());
+        drill = itemRepository.save(new Item(null, "Дрель", "Простая дрель", true, owner, null));
+        saw = itemRepository.save(new Item(null, "Пила", "Ручная пила", true, owner, null));
+    }
+
+    @Test
+    void findCandidatesGroupsItemsByRequest() {
+        requestMatchRepository.saveAll(first.getId(), List.of(drill, saw));
+        requestMatchRepository.saveAll(second.getId(), List.of(saw));
+
+        List<ItemDto> candidates = requestMatchRepository.findCandidates(List.of(first.getId(), second.getId()));
+
+        Assertions.assertEquals(List.of(first.getId(), first.getId(), second.getId()), candidates.stream()
+                .map(ItemDto::getRequestId)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(drill.getId(), saw.getId(), saw.getId()), candidates.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals("Дрель", candidates.get(0).getName());
+        Assertions.assertTrue(requestMatchRepository.findCandidates(List.of(-1L)).isEmpty());
+    }
+
+    @Test
+    void findByOwnerReturnsLimitedInbox() {
+        requestMatchRepository.saveAll(first.getId(), List.of(drill, saw));
+
+        Assertions.assertEquals(2, requestMatchRepository.findByOwner(owner.getId(), 10).size());
+        Assertions.assertEquals(1, requestMatchRepository.findByOwner(owner.getId(), 1).size());
+        Assertions.assertTrue(requestMatchRepository.findByOwner(first.getRequestor().getId(), 10).isEmpty());
+    }
+}
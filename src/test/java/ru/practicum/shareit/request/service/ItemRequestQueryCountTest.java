@@ -0,0 +1,112 @@
+package ru.practicum.shareit.request.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.match.ItemRequestMatcher;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Число SQL запросов при получении списков запросов не зависит от числа запросов на странице.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ItemRequestServiceImpl.class, RequestMatchRepository.class, RequestFeed.class, UserCache.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemRequestQueryCountTest {
+
+    private static final int REQUESTS = 5;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+
+    private Statistics statistics;
+    private User requestor;
+    private User answerer;
+
+    @BeforeEach
+    void setUp() {
+        requestor = entityManager.persist(User.builder().name("requestor").email("requestor@email.com").build());
+        answerer = entityManager.persist(User.builder().name("answerer").email("answerer@email.com").build());
+        LocalDateTime created = LocalDateTime.now();
+        for (int i = 0; i < REQUESTS; i++) {
+            ItemRequest request = entityManager.persist(ItemRequest.builder()
+                    .description("request" + i)
+                    .requestor(requestor)
+                    .created(created.minusMinutes(i))
+                    .build());
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(new Item(null, "item" + i + j, "description", true, answerer, request));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getRequestsUsesConstantNumberOfQueries() {
+        List<ItemRequestDto> requests = itemRequestService.getRequests(requestor.getId(), null, 10).getItems();
+
+        assertEquals(REQUESTS, requests.size());
+        requests.forEach(request -> assertEquals(2, request.getItems().size()));
+        requests.forEach(request -> request.getItems().stream()
+                .map(ItemDto::getRequestId)
+                .forEach(requestId -> assertEquals(request.getId(), requestId)));
+        requests.forEach(request -> assertEquals(List.of(), request.getCandidates()));
+        // candidates читаются одним JDBC запросом в обход Hibernate и в статистику не попадают
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllRequestUsesConstantNumberOfQueries() {
+        List<ItemRequestDto> requests = itemRequestService.getAllRequest(answerer.getId(), null, 0, 100)
+                .getItems();
+
+        assertEquals(REQUESTS, requests.size());
+        assertEquals(2 * REQUESTS, requests.stream().mapToInt(request -> request.getItems().size()).sum());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllRequestReadsFeedFromDatabaseOnce() {
+        itemRequestService.getAllRequest(answerer.getId(), null, 0, 2);
+        entityManager.clear();
+        statistics.clear();
+
+        List<ItemRequestDto> requests = itemRequestService.getAllRequest(answerer.getId(), null, 2, 2).getItems();
+
+        assertEquals(2, requests.size());
+        requests.forEach(request -> assertEquals(2, request.getItems().size()));
+        // и лента, и пользователь уже в кэше
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of(), itemRequestService.getAllRequest(requestor.getId(), null, 0, 10).getItems());
+    }
+}
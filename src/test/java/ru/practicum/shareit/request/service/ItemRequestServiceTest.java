@@ -3,6 +3,7 @@ package ru.practicum.shareit.request.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -11,13 +12,20 @@ import org.mockito.quality.Strictness;
 import ru.practicum.shareit.exception.InvalidEntityException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.match.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestPageQuery;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,9 +33,15 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -41,11 +55,20 @@ class ItemRequestServiceTest {
     ItemRequestRepository itemRequestRepository;
 
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
 
     @Mock
     ItemRepository itemRepository;
 
+    @Mock
+    RequestMatchRepository requestMatchRepository;
+
+    @Mock
+    ItemRequestMatcher itemRequestMatcher;
+
+    @Mock
+    RequestFeed requestFeed;
+
     User user;
     ItemRequest itemRequest;
 
@@ -68,20 +91,45 @@ class ItemRequestServiceTest {
 
     @Test
     void getRequests() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findAllByRequestorId(anyLong())).thenReturn(List.of(itemRequest));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest));
 
-        assertEquals(itemRequestServiceImpl.getRequests(user.getId()), List.of(this.toItemRequestDto(itemRequest)));
+        ItemRequestDto expected = toItemRequestDto(itemRequest);
+        expected.setCandidates(List.of());
+        assertEquals(itemRequestServiceImpl.getRequests(user.getId(), null, 10).getItems(), List.of(expected));
+        ArgumentCaptor<ItemRequestPageQuery> query = ArgumentCaptor.forClass(ItemRequestPageQuery.class);
+        verify(itemRequestRepository).findPage(query.capture());
+        assertTrue(query.getValue().isOwn());
+        assertEquals(user.getId(), query.getValue().getUserId());
+        assertEquals(11, query.getValue().getLimit());
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
         assertThrows(ObjectNotFoundException.class, () -> {
-            itemRequestServiceImpl.getRequests(user.getId());
+            itemRequestServiceImpl.getRequests(user.getId(), null, 10);
         });
     }
 
+    @Test
+    void getRequestsWithoutPaging() {
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest));
+
+        KeysetPage<ItemRequestDto> page = itemRequestServiceImpl.getRequests(user.getId(), null, null);
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<ItemRequestPageQuery> query = ArgumentCaptor.forClass(ItemRequestPageQuery.class);
+        verify(itemRequestRepository).findPage(query.capture());
+        assertTrue(query.getValue().isOwn());
+        assertNull(query.getValue().getLimit());
+
+        itemRequestServiceImpl.getRequests(user.getId(), KeysetCursor.encode(itemRequest.getCreated(), 5L), null);
+        verify(itemRequestRepository, times(2)).findPage(query.capture());
+        assertEquals(ItemRequestServiceImpl.DEFAULT_PAGE_SIZE + 1, query.getValue().getLimit());
+    }
+
     @Test
     void addRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
         when(itemRequestRepository.save(any())).thenReturn(itemRequest);
 
         ItemRequestDto itemRequestDto = toItemRequestDto(itemRequest);
@@ -89,21 +137,26 @@ class ItemRequestServiceTest {
         result.setCreated(itemRequestDto.getCreated());
 
         assertEquals(itemRequestDto, result);
+        verify(itemRequestMatcher).submit(itemRequest);
+        verify(requestFeed).add(result);
     }
 
     @Test
     void getRequestById() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
 
-        assertEquals(itemRequestServiceImpl.getRequestById(user.getId(), 1L), toItemRequestDto(itemRequest));
+        ItemRequestDto expected = toItemRequestDto(itemRequest);
+        expected.setCandidates(List.of());
+        assertEquals(itemRequestServiceImpl.getRequestById(user.getId(), 1L), expected);
+        assertEquals(itemRequestServiceImpl.getRequestById(2L, 1L), toItemRequestDto(itemRequest));
 
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.empty());
         assertThrows(ObjectNotFoundException.class, () -> {
             itemRequestServiceImpl.getRequestById(1L, 1L);
         });
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
         assertThrows(ObjectNotFoundException.class, () -> {
             itemRequestServiceImpl.getRequestById(1L, 1L);
         });
@@ -111,23 +164,127 @@ class ItemRequestServiceTest {
 
     @Test
     void getAllRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findAllByRequestorIdIsNot(anyLong(), any())).thenReturn(List.of(itemRequest));
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest));
 
-        assertEquals(itemRequestServiceImpl.getAllRequest(user.getId(), 0, 10), List.of(toItemRequestDto(itemRequest)));
+        assertEquals(itemRequestServiceImpl.getAllRequest(user.getId(), null, 0, 10).getItems(),
+                List.of(toItemRequestDto(itemRequest)));
+        assertThrows(InvalidEntityException.class, () -> {
+            itemRequestServiceImpl.getAllRequest(user.getId(), "bad", 0, 10);
+        });
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
         assertThrows(ObjectNotFoundException.class, () -> {
-            itemRequestServiceImpl.getAllRequest(user.getId(), 0, 10);
+            itemRequestServiceImpl.getAllRequest(user.getId(), null, 0, 10);
         });
 
         assertThrows(InvalidEntityException.class, () -> {
-            itemRequestServiceImpl.getAllRequest(user.getId(), 0, -10);
+            itemRequestServiceImpl.getAllRequest(user.getId(), null, 0, -10);
         });
     }
 
+    @Test
+    void getAllRequestReturnsCursorOfLastRequest() {
+        ItemRequest second = ItemRequest.builder()
+                .id(2L)
+                .description("second")
+                .created(itemRequest.getCreated().minusHours(1))
+                .requestor(user)
+                .build();
+        ItemRequest third = ItemRequest.builder()
+                .id(3L)
+                .description("third")
+                .created(itemRequest.getCreated().minusHours(2))
+                .requestor(user)
+                .build();
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest, second, third));
+
+        KeysetPage<ItemRequestDto> page = itemRequestServiceImpl.getAllRequest(2L, null, 3, 2);
+
+        assertEquals(List.of(1L, 2L), page.getItems().stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(KeysetCursor.encode(second.getCreated(), second.getId()), page.getNextCursor());
+        ArgumentCaptor<ItemRequestPageQuery> query = ArgumentCaptor.forClass(ItemRequestPageQuery.class);
+        verify(itemRequestRepository).findPage(query.capture());
+        assertFalse(query.getValue().isOwn());
+        assertEquals(3, query.getValue().getOffset());
+        assertEquals(3, query.getValue().getLimit());
+
+        itemRequestServiceImpl.getAllRequest(2L, page.getNextCursor(), 3, 2);
+        verify(itemRequestRepository, times(2)).findPage(query.capture());
+        assertEquals(0, query.getValue().getOffset());
+        assertEquals(second.getCreated(), query.getValue().getAfterCreated());
+        assertEquals(second.getId(), query.getValue().getAfterId());
+    }
+
+    @Test
+    void getAllRequestLoadsItemsOfPageOnce() {
+        ItemRequest second = ItemRequest.builder()
+                .id(2L)
+                .description("second")
+                .created(LocalDateTime.now())
+                .requestor(user)
+                .build();
+        Item answer1 = Item.builder().id(10L).name("item10").available(true).request(itemRequest).build();
+        Item answer2 = Item.builder().id(11L).name("item11").available(true).request(itemRequest).build();
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest, second));
+        when(itemRepository.findAllByRequest_IdIn(List.of(1L, 2L))).thenReturn(List.of(answer1, answer2));
+
+        List<ItemRequestDto> result = itemRequestServiceImpl.getAllRequest(2L, null, 0, 10).getItems();
+
+        assertEquals(List.of(10L, 11L), result.get(0).getItems().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), result.get(1).getItems());
+        verify(itemRepository, times(1)).findAllByRequest_IdIn(any());
+        verify(itemRepository, never()).findAllByRequest_Id(anyLong());
+    }
+
+    @Test
+    void getRequestsAttachesCandidatesOnlyForRequestor() {
+        ItemDto candidate = ItemDto.builder().id(10L).name("Дрель").available(true).requestId(1L).build();
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findPage(any())).thenReturn(List.of(itemRequest));
+        when(requestMatchRepository.findCandidates(List.of(1L))).thenReturn(List.of(candidate));
+
+        assertEquals(List.of(candidate), itemRequestServiceImpl.getRequests(user.getId(), null, 10).getItems()
+                .get(0).getCandidates());
+        assertEquals(null, itemRequestServiceImpl.getAllRequest(2L, null, 0, 10).getItems()
+                .get(0).getCandidates());
+        verify(requestMatchRepository, times(1)).findCandidates(any());
+    }
+
+    @Test
+    void getAllRequestIsServedFromFeed() {
+        ItemRequestDto cached = toItemRequestDto(itemRequest);
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(requestFeed.find(any(), any())).thenReturn(Optional.of(List.of(cached)));
+
+        assertEquals(List.of(cached), itemRequestServiceImpl.getAllRequest(2L, null, 0, 10).getItems());
+        verify(itemRequestRepository, never()).findPage(any());
+
+        itemRequestServiceImpl.getRequests(1L, null, 10);
+        verify(requestFeed, times(1)).find(any(), any());
+    }
+
+    @Test
+    void getMatches() {
+        ItemDto candidate = ItemDto.builder().id(10L).name("Дрель").available(true).requestId(1L).build();
+        when(userCache.find(anyLong())).thenReturn(Optional.of(user));
+        when(requestMatchRepository.findByOwner(1L, 20)).thenReturn(List.of(candidate));
+
+        assertEquals(List.of(candidate), itemRequestServiceImpl.getMatches(1L, 20));
+        assertThrows(InvalidEntityException.class, () -> itemRequestServiceImpl.getMatches(1L, 0));
+
+        when(userCache.find(anyLong())).thenReturn(Optional.empty());
+        assertThrows(ObjectNotFoundException.class, () -> itemRequestServiceImpl.getMatches(1L, 20));
+    }
+
     private List<ItemDto> putItemDtoToRequest(ItemRequest itemRequest) {
-        return itemRepository.findAllByRequest_Id(itemRequest.getId()).stream()
+        return itemRepository.findAllByRequest_IdIn(List.of(itemRequest.getId())).stream()
                 .map(RequestMapper::toRequestItemDto)
                 .collect(Collectors.toList());
     }
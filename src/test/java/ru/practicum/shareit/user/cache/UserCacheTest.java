@@ -0,0 +1,88 @@
+package ru.practicum.shareit.user.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserCache cache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(userRepository, 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        user = new User(1L, "user", "user@user.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void foundUserIsLoadedOnceAndCopied() {
+        User first = cache.find(1L).orElseThrow();
+        first.setName("changed");
+        User second = cache.find(1L).orElseThrow();
+
+        assertEquals("user", second.getName());
+        assertNotSame(first, second);
+        verify(userRepository, times(1)).findById(1L);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void missingUserIsRemembered() {
+        assertTrue(cache.find(2L).isEmpty());
+        assertTrue(cache.find(2L).isEmpty());
+
+        verify(userRepository, times(1)).findById(2L);
+        assertEquals(1, cache.getNegativeHits());
+    }
+
+    @Test
+    void evictReloadsUser() {
+        cache.find(1L);
+        user.setName("updated");
+        cache.evict(1L);
+
+        assertEquals("updated", cache.find(1L).orElseThrow().getName());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void expiredAndEvictedEntriesAreReloaded() {
+        UserCache expiring = new UserCache(userRepository, 2, Duration.ZERO, Duration.ZERO);
+        expiring.find(1L);
+        expiring.find(1L);
+        verify(userRepository, times(2)).findById(1L);
+
+        when(userRepository.findById(3L)).thenReturn(Optional.empty());
+        cache.find(1L);
+        cache.find(2L);
+        cache.find(3L);
+        assertEquals(2, cache.size());
+        cache.find(1L);
+        verify(userRepository, times(4)).findById(1L);
+    }
+}
@@ -8,16 +8,29 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.exception.EntityAlreadyExist;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserImportService;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +44,9 @@ class UserControllerTest {
     @MockBean
     UserServiceImpl userService;
 
+    @MockBean
+    UserImportService userImportService;
+
     @Autowired
     private MockMvc mockMvc;
     private User user;
@@ -85,6 +101,18 @@ class UserControllerTest {
                 .andExpect(content().json(mapper.writeValueAsString(UserMapper.toUserDto(user))));
     }
 
+    @Test
+    void addUserWithTakenEmailIsConflict() throws Exception {
+        when(userService.addUser(any())).thenThrow(new EntityAlreadyExist("Такой email уже существует."));
+
+        mockMvc.perform(post("/users")
+                        .content(mapper.writeValueAsString(UserMapper.toUserDto(user)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void updateUser() throws Exception {
         User updatedUser = user;
@@ -110,4 +138,74 @@ class UserControllerTest {
         verify(userService, times(1))
                 .deleteUser(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importUsers() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserImportResultDto> results = invocation.getArgument(2);
+            results.accept(UserImportResultDto.builder().index(0).id(1L).email("user@user.com").build());
+            results.accept(UserImportResultDto.builder().index(1).error("Некорректный email.").build());
+            return null;
+        }).when(userImportService).importUsers(any(), eq(true), any());
+
+        MvcResult result = mockMvc.perform(post("/users/import")
+                        .content("name,email\nuser,user@user.com\nbroken,broken\n")
+                        .contentType("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().bytes((
+                        "{\"index\":0,\"id\":1,\"email\":\"user@user.com\",\"error\":null}\n"
+                                + "{\"index\":1,\"id\":null,\"email\":null,\"error\":\"Некорректный email.\"}\n")
+                        .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importUsersInSeveralChunks() throws Exception {
+        int rows = 2500;
+        doAnswer(invocation -> {
+            InputStream body = invocation.getArgument(0);
+            Consumer<UserImportResultDto> results = invocation.getArgument(2);
+            List<String> lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))
+                    .lines()
+                    .collect(Collectors.toList());
+            for (int i = 0; i < lines.size(); i++) {
+                results.accept(UserImportResultDto.builder().index(i).id(i + 1L).email(lines.get(i)).build());
+            }
+            return null;
+        }).when(userImportService).importUsers(any(), eq(false), any());
+        String content = IntStream.range(0, rows)
+                .mapToObj(i -> "{\"name\":\"user" + i + "\",\"email\":\"user" + i + "@user.com\"}")
+                .collect(Collectors.joining("\n"));
+
+        MvcResult result = mockMvc.perform(post("/users/import")
+                        .content(content)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        List<String> lines = response.lines().collect(Collectors.toList());
+        assertEquals(rows, lines.size());
+        assertEquals(rows - 1, mapper.readTree(lines.get(rows - 1)).get("index").asInt());
+    }
+
+    @Test
+    void importUsersWithUnsupportedType() throws Exception {
+        mockMvc.perform(post("/users/import")
+                        .content("{}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnsupportedMediaType());
+        verifyNoInteractions(userImportService);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.user.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class EmailBloomFilterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private EmailBloomFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new EmailBloomFilter(jdbcTemplate, 1000, 0.01);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn("seeded@email.com");
+        doAnswer(invocation -> {
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void everyEmailMightBeTakenBeforeSeed() {
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("new@email.com"));
+    }
+
+    @Test
+    void seededAndAddedEmailsAreFoundIgnoringCase() {
+        filter.seed();
+        filter.put("added@email.com");
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("seeded@email.com"));
+        assertTrue(filter.mightContain(" Added@Email.com"));
+        assertFalse(filter.mightContain("new@email.com"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfigured() {
+        filter.seed();
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user" + i + "@email.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "ложных срабатываний: " + falsePositives);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.user.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Set;
+
+@DataJpaTest
+@Import(UserBatchRepository.class)
+class UserBatchRepositoryTest {
+
+    @Autowired
+    UserBatchRepository userBatchRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void saveAllAssignsIds() {
+        List<User> saved = userBatchRepository.saveAll(List.of(
+                new User(null, "first", "first@mail.ru"),
+                new User(null, "second", "second@mail.ru")));
+
+        Assertions.assertEquals(2, saved.size());
+        Assertions.assertNotNull(saved.get(0).getId());
+        Assertions.assertEquals("second@mail.ru",
+                userRepository.findById(saved.get(1).getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void saveAllRejectsTakenEmail() {
+        userRepository.saveAndFlush(new User(null, "first", "first@mail.ru"));
+
+        Assertions.assertThrows(DuplicateKeyException.class,
+                () -> userBatchRepository.saveAll(List.of(new User(null, "again", "first@mail.ru"))));
+    }
+
+    @Test
+    void findExistingEmails() {
+        userRepository.saveAndFlush(new User(null, "first", "first@mail.ru"));
+
+        Assertions.assertEquals(Set.of("first@mail.ru"),
+                userBatchRepository.findExistingEmails(List.of("first@mail.ru", "new@mail.ru")));
+    }
+}
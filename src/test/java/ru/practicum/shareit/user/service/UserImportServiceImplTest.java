@@ -0,0 +1,193 @@
+package ru.practicum.shareit.user.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+import ru.practicum.shareit.user.filter.EmailBloomFilter;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserBatchRepository;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceImplTest {
+
+    @Mock
+    private UserBatchRepository userBatchRepository;
+
+    @Mock
+    private EmailBloomFilter emailFilter;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    private UserImportServiceImpl userImportService;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userImportService = new UserImportServiceImpl(userBatchRepository, emailFilter, userCache,
+                transactionTemplate, objectMapper, Validation.buildDefaultValidatorFactory().getValidator());
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(userBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+        when(userBatchRepository.findExistingEmails(any())).thenReturn(Set.of());
+    }
+
+    @Test
+    void importUsersFromNdjson() {
+        when(emailFilter.mightContain("taken@email.com")).thenReturn(true);
+        when(userBatchRepository.findExistingEmails(List.of("taken@email.com"))).thenReturn(Set.of("taken@email.com"));
+
+        List<UserImportResultDto> results = importUsers(
+                "{\"name\": \"first\", \"email\": \"first@email.com\"}\n"
+                        + "{\"name\": \"broken\", \n"
+                        + "\n"
+                        + "{\"name\": \"taken\", \"email\": \"taken@email.com\"}\n"
+                        + "{\"name\": \"invalid\", \"email\": \"invalid\"}\n"
+                        + "{\"name\": \"again\", \"email\": \"first@email.com\"}\n"
+                        + "{\"name\": \"second\", \"email\": \"second@email.com\"}\n", false);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), indexes(results));
+        assertEquals(1L, results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        assertEquals("Такой email уже существует.", results.get(2).getError());
+        assertEquals("Некорректный email.", results.get(3).getError());
+        assertEquals("Такой email уже существует.", results.get(4).getError());
+        assertEquals(2L, results.get(5).getId());
+        assertEquals("second@email.com", results.get(5).getEmail());
+        verify(userBatchRepository, times(1)).saveAll(anyList());
+        verify(emailFilter).put("second@email.com");
+        verify(userCache).evict(2L);
+    }
+
+    @Test
+    void importUsersFromCsvWithHeader() {
+        List<UserImportResultDto> results = importUsers("email,name\n"
+                + "first@email.com,\"Иванов, Иван\"\n"
+                + "second@email.com\n"
+                + "\"third@email.com\",\"Петр \"\"Первый\"\"\"\n", true);
+
+        assertEquals(List.of(0, 1, 2), indexes(results));
+        assertEquals(1L, results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        assertEquals(2L, results.get(2).getId());
+        verify(userBatchRepository).saveAll(argThat(users -> users.size() == 2
+                && users.get(0).getName().equals("Иванов, Иван")
+                && users.get(1).getName().equals("Петр \"Первый\"")));
+    }
+
+    @Test
+    void importUsersFromCsvWithoutHeader() {
+        List<UserImportResultDto> results = importUsers("first,first@email.com\n", true);
+
+        assertEquals(1L, results.get(0).getId());
+        verify(userBatchRepository).saveAll(argThat(users -> users.get(0).getName().equals("first")));
+    }
+
+    @Test
+    void importUsersInChunksWithoutQueriesForUnknownEmails() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < UserImportServiceImpl.CHUNK_SIZE + 1; i++) {
+            csv.append("user,user").append(i).append("@email.com\n");
+        }
+        List<UserImportResultDto> results = new ArrayList<>();
+        List<Integer> resultsBeforeLastChunk = new ArrayList<>();
+        when(userBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            resultsBeforeLastChunk.add(results.size());
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+
+        userImportService.importUsers(body(csv.toString()), true, results::add);
+
+        assertEquals(UserImportServiceImpl.CHUNK_SIZE + 1, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getError() == null));
+        assertEquals(List.of(0, UserImportServiceImpl.CHUNK_SIZE), resultsBeforeLastChunk);
+        verify(userBatchRepository, never()).findExistingEmails(any());
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() {
+        when(userBatchRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.size() > 1) {
+                throw new DataIntegrityViolationException("batch");
+            }
+            if (users.get(0).getEmail().equals("race@email.com")) {
+                throw new DuplicateKeyException("users.email");
+            }
+            if (users.get(0).getEmail().equals("long@email.com")) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+
+        List<UserImportResultDto> results = importUsers("first,first@email.com\n"
+                + "race,race@email.com\n"
+                + "long,long@email.com\n", true);
+
+        assertEquals(1L, results.get(0).getId());
+        assertEquals("Такой email уже существует.", results.get(1).getError());
+        assertEquals("Не удалось сохранить пользователя.", results.get(2).getError());
+        assertNull(results.get(2).getId());
+    }
+
+    private List<UserImportResultDto> importUsers(String content, boolean csv) {
+        List<UserImportResultDto> results = new ArrayList<>();
+        userImportService.importUsers(body(content), csv, results::add);
+        return results;
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Integer> indexes(List<UserImportResultDto> results) {
+        return results.stream().map(UserImportResultDto::getIndex).collect(Collectors.toList());
+    }
+}
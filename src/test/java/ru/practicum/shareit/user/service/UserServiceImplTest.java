@@ -8,13 +8,21 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.exception.EntityAlreadyExist;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.cache.ItemResponseCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.filter.EmailBloomFilter;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +30,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +42,24 @@ class UserServiceImplTest {
     @Mock
     private UserRepository repository;
 
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private ItemResponseCache itemResponseCache;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private EmailBloomFilter emailFilter;
+
     @InjectMocks
     private UserServiceImpl service;
 
@@ -73,10 +101,12 @@ class UserServiceImplTest {
 
         assertEquals(service.addUser(UserMapper.toUserDto(user)), UserMapper.toUserDto(user));
 
+        when(emailFilter.mightContain(any())).thenReturn(true);
         when(repository.existsUserByEmail(any())).thenReturn(true);
         assertThrows(EntityAlreadyExist.class, () -> {
             service.addUser(UserMapper.toUserDto(user));
         });
+        verify(repository, times(1)).save(any());
 
         user.setEmail(null);
         assertThrows(IllegalArgumentException.class, () -> {
@@ -84,6 +114,36 @@ class UserServiceImplTest {
         });
     }
 
+    @Test
+    void addUserWithUnknownEmailSkipsExistenceQuery() {
+        when(emailFilter.mightContain(any())).thenReturn(false);
+        when(repository.save(any())).thenReturn(user);
+
+        service.addUser(UserMapper.toUserDto(user));
+
+        verify(repository, never()).existsUserByEmail(any());
+        verify(emailFilter).put(user.getEmail());
+    }
+
+    @Test
+    void addUserDuplicateMissedByFilterIsConflict() {
+        when(emailFilter.mightContain(any())).thenReturn(false);
+        when(repository.save(any())).thenThrow(new DataIntegrityViolationException("users.email",
+                new SQLException("Unique index or primary key violation", "23505")));
+
+        assertThrows(EntityAlreadyExist.class, () -> service.addUser(UserMapper.toUserDto(user)));
+        verify(repository, times(1)).save(any());
+    }
+
+    @Test
+    void addUserWithOtherIntegrityViolationIsNotConflict() {
+        when(emailFilter.mightContain(any())).thenReturn(false);
+        when(repository.save(any())).thenThrow(new DataIntegrityViolationException("users.name",
+                new SQLException("Value too long for column", "22001")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.addUser(UserMapper.toUserDto(user)));
+    }
+
     @Test
     void updateUser() {
         UserDto userDto = UserDto.builder()
@@ -96,6 +156,7 @@ class UserServiceImplTest {
         when(repository.save(any())).thenReturn(user);
 
         assertEquals(service.updateUser(1L, userDto), UserMapper.toUserDto(user));
+        verify(userCache).evict(1L);
 
         when(repository.findById(anyLong())).thenReturn(Optional.empty());
 
@@ -111,6 +172,9 @@ class UserServiceImplTest {
         when(repository.existsById(anyLong())).thenReturn(true);
         service.deleteUser(1L);
         verify(repository).deleteById(1L);
+        verify(searchEngine).removeOwner(1L);
+        verify(bookingIntervalIndex).clear();
+        verify(userCache).evict(1L);
 
         when(repository.existsById(anyLong())).thenReturn(false);
         assertThrows(ObjectNotFoundException.class, () -> service.deleteUser(999L));